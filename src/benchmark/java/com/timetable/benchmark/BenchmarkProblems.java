@@ -0,0 +1,41 @@
+package com.timetable.benchmark;
+
+import com.timetable.TimeTableApp;
+import com.timetable.domain.Lesson;
+import com.timetable.domain.TimeSlot;
+import com.timetable.domain.TimeTable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Builds the problems the benchmarks measure, from the CSVs in the working directory.
+ */
+public class BenchmarkProblems {
+    private BenchmarkProblems() {}
+
+    // The shipped CSVs loaded exactly like TimeTableApp does, with every lesson on a seeded random slot of its range
+    public static TimeTable loadShippedProblem(long seed) {
+        Logger.getLogger("").setLevel(Level.WARNING); // TimeTableApp logs every lesson it creates
+        TimeTable problem = TimeTableApp.loadProblem();
+        Random random = new Random(seed);
+        for (Lesson lesson : allLessons(problem)) {
+            lesson.setTimeSlot(randomTimeSlot(lesson, random));
+        }
+        return problem;
+    }
+
+    public static List<Lesson> allLessons(TimeTable problem) {
+        List<Lesson> lessons = new ArrayList<>(problem.getLessonList());
+        lessons.addAll(problem.getMinorLessonList());
+        return lessons;
+    }
+
+    public static TimeSlot randomTimeSlot(Lesson lesson, Random random) {
+        List<TimeSlot> range = lesson.getTimeSlotRange();
+        return range.get(random.nextInt(range.size()));
+    }
+}
@@ -0,0 +1,135 @@
+package com.timetable.benchmark;
+
+import com.timetable.TimeTableApp;
+import com.timetable.domain.Lesson;
+import com.timetable.domain.TimeSlot;
+import com.timetable.domain.TimeTable;
+import com.timetable.score.TimeTableConstraintProvider;
+import com.timetable.solver.SolverOptions;
+import com.timetable.solver.TimeTableSolverConfig;
+import com.timetable.util.SolutionImporter;
+import org.optaplanner.core.api.score.buildin.hardsoft.HardSoftScore;
+import org.optaplanner.core.api.score.constraint.ConstraintMatchTotal;
+import org.optaplanner.core.api.score.stream.ConstraintProvider;
+import org.optaplanner.core.api.solver.SolutionManager;
+import org.optaplanner.core.api.solver.SolverFactory;
+import org.optaplanner.core.config.score.director.ScoreDirectorFactoryConfig;
+import org.optaplanner.core.config.solver.SolverConfig;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Scores the same timetables with DuplicateConstraintProvider and with the consolidated
+ * TimeTableConstraintProvider, and prints the score and match count of every constraint whose component
+ * differs. The timetables are the exported final_timetable.csv, if present, and seeded random assignments.
+ *
+ * Run with: mvn -Pbenchmark compile exec:exec@constraint-parity [-Dconstraint.parity.args="<timetable.csv> <random timetables>"]
+ */
+public class ConstraintSetParityCheck {
+    private static final Logger logger = Logger.getLogger(ConstraintSetParityCheck.class.getName());
+
+    public static void main(String[] args) {
+        Path exportedTimetable = Paths.get(args.length > 0 ? args[0] : "final_timetable.csv");
+        int randomTimetables = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        try {
+            TimeTable problem = TimeTableApp.loadProblem();
+            SolutionManager<TimeTable, HardSoftScore> duplicated = solutionManager(DuplicateConstraintProvider.class);
+            SolutionManager<TimeTable, HardSoftScore> consolidated = solutionManager(TimeTableConstraintProvider.class);
+
+            if (Files.exists(exportedTimetable)) {
+                clearTimeSlots(problem);
+                int seeded = SolutionImporter.seedTimeSlots(problem, exportedTimetable);
+                assignRandomTimeSlots(problem, new Random(0), true);
+                compare(exportedTimetable + " (" + seeded + " lessons seeded)", problem, duplicated, consolidated);
+            }
+            for (int seed = 0; seed < randomTimetables; seed++) {
+                assignRandomTimeSlots(problem, new Random(seed), false);
+                compare("Random timetable " + seed, problem, duplicated, consolidated);
+            }
+        } catch (Exception e) {
+            logger.log(Level.SEVERE, "Constraint set parity check failed", e);
+            System.exit(1);
+        }
+    }
+
+    private static void compare(String label, TimeTable timeTable, SolutionManager<TimeTable, HardSoftScore> duplicated,
+                                SolutionManager<TimeTable, HardSoftScore> consolidated) {
+        Map<String, ConstraintMatchTotal<HardSoftScore>> before = totalsByName(duplicated, timeTable);
+        Map<String, ConstraintMatchTotal<HardSoftScore>> after = totalsByName(consolidated, timeTable);
+        StringBuilder report = new StringBuilder(String.format("%s: %s with duplicates, %s consolidated",
+                label, duplicated.update(timeTable), consolidated.update(timeTable)));
+
+        Set<String> names = new TreeSet<>(before.keySet());
+        names.addAll(after.keySet());
+        int unchanged = 0;
+        for (String name : names) {
+            ConstraintMatchTotal<HardSoftScore> beforeTotal = before.get(name);
+            ConstraintMatchTotal<HardSoftScore> afterTotal = after.get(name);
+            HardSoftScore beforeScore = beforeTotal != null ? beforeTotal.getScore() : HardSoftScore.ZERO;
+            HardSoftScore afterScore = afterTotal != null ? afterTotal.getScore() : HardSoftScore.ZERO;
+            if (beforeScore.equals(afterScore)) {
+                unchanged++;
+                continue;
+            }
+            report.append(String.format("%n  %-50s %s (%d matches) -> %s (%d matches)", name,
+                    beforeScore, beforeTotal != null ? beforeTotal.getConstraintMatchCount() : 0,
+                    afterScore, afterTotal != null ? afterTotal.getConstraintMatchCount() : 0));
+        }
+        report.append(String.format("%n  %d constraints unchanged", unchanged));
+        logger.info(report.toString());
+    }
+
+    // Both providers define their constraints in their own package, so they are compared by name
+    private static Map<String, ConstraintMatchTotal<HardSoftScore>> totalsByName(
+            SolutionManager<TimeTable, HardSoftScore> solutionManager, TimeTable timeTable) {
+        Map<String, ConstraintMatchTotal<HardSoftScore>> totals = new TreeMap<>();
+        for (ConstraintMatchTotal<HardSoftScore> total
+                : solutionManager.explain(timeTable).getConstraintMatchTotalMap().values()) {
+            totals.put(total.getConstraintName(), total);
+        }
+        return totals;
+    }
+
+    private static SolutionManager<TimeTable, HardSoftScore> solutionManager(
+            Class<? extends ConstraintProvider> constraintProviderClass) {
+        SolverConfig solverConfig = TimeTableSolverConfig.create(SolverOptions.MOVE_THREADS_NONE, Duration.ofSeconds(1),
+                        SolverOptions.SCORE_CALCULATOR_STREAMS)
+                .withScoreDirectorFactory(new ScoreDirectorFactoryConfig()
+                        .withConstraintProviderClass(constraintProviderClass));
+        return SolutionManager.create(SolverFactory.create(solverConfig));
+    }
+
+    private static List<Lesson> allLessons(TimeTable problem) {
+        List<Lesson> lessons = new ArrayList<>(problem.getLessonList());
+        lessons.addAll(problem.getMinorLessonList());
+        return lessons;
+    }
+
+    private static void clearTimeSlots(TimeTable problem) {
+        for (Lesson lesson : allLessons(problem)) {
+            lesson.setTimeSlot(null);
+        }
+    }
+
+    // Lessons the export left unassigned get a random slot too, so both providers see a complete timetable
+    private static void assignRandomTimeSlots(TimeTable problem, Random random, boolean unassignedOnly) {
+        for (Lesson lesson : allLessons(problem)) {
+            List<TimeSlot> range = lesson.getTimeSlotRange();
+            if (!unassignedOnly || lesson.getTimeSlot() == null) {
+                lesson.setTimeSlot(range.get(random.nextInt(range.size())));
+            }
+        }
+    }
+}
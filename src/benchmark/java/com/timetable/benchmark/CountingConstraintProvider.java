@@ -0,0 +1,60 @@
+package com.timetable.benchmark;
+
+import com.timetable.domain.Lesson;
+import com.timetable.score.TimeTableConstraintProvider;
+import org.optaplanner.core.api.score.stream.ConstraintFactory;
+import org.optaplanner.core.api.score.stream.bi.BiConstraintStream;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * TimeTableConstraintProvider with a counter behind the join of each pair constraint. The counter sits in a
+ * pass-through filter, so it counts every tuple the engine hands on from the join to the rest of the constraint,
+ * on the first calculation as well as on every variable change. OptaPlanner instantiates providers by class,
+ * so the counters are static and shared by all instances; reset them between runs.
+ */
+public class CountingConstraintProvider extends TimeTableConstraintProvider {
+    public static final String FACULTY_CLASH = "Faculty Time Conflict";
+    public static final String BATCH_CLASH = "Student batch time conflict";
+    public static final String MINOR_ROOM_CLASH = "No room conflicts for minors";
+
+    private static final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+
+    public static void resetCounts() {
+        counters.values().forEach(LongAdder::reset);
+    }
+
+    // Tuples passed on per constraint name since the last reset
+    public static Map<String, Long> counts() {
+        Map<String, Long> counts = new TreeMap<>();
+        counters.forEach((constraintName, counter) -> counts.put(constraintName, counter.sum()));
+        return counts;
+    }
+
+    @Override
+    protected BiConstraintStream<Lesson, Lesson> facultyClashCandidates(ConstraintFactory factory) {
+        return counted(FACULTY_CLASH, super.facultyClashCandidates(factory));
+    }
+
+    @Override
+    protected BiConstraintStream<Lesson, Lesson> batchClashPairs(ConstraintFactory factory) {
+        return counted(BATCH_CLASH, super.batchClashPairs(factory));
+    }
+
+    @Override
+    protected BiConstraintStream<Lesson, Lesson> minorRoomClashPairs(ConstraintFactory constraintFactory) {
+        return counted(MINOR_ROOM_CLASH, super.minorRoomClashPairs(constraintFactory));
+    }
+
+    protected static BiConstraintStream<Lesson, Lesson> counted(String constraintName,
+                                                                BiConstraintStream<Lesson, Lesson> join) {
+        LongAdder counter = counters.computeIfAbsent(constraintName, key -> new LongAdder());
+        return join.filter((lesson1, lesson2) -> {
+            counter.increment();
+            return true;
+        });
+    }
+}
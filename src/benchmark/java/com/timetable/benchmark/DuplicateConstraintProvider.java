@@ -0,0 +1,71 @@
+package com.timetable.benchmark;
+
+import com.timetable.domain.Lesson;
+import com.timetable.domain.RoomType;
+import com.timetable.score.TimeTableConstraintProvider;
+import org.optaplanner.core.api.score.buildin.hardsoft.HardSoftScore;
+import org.optaplanner.core.api.score.stream.Constraint;
+import org.optaplanner.core.api.score.stream.ConstraintFactory;
+import org.optaplanner.core.api.score.stream.Joiners;
+
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+/**
+ * TimeTableConstraintProvider plus the constraints it used to register on top of its batch clash, faculty clash
+ * and lab room rules, each repeating part of the match set of one of them. ConstraintSetParityCheck scores
+ * timetables with both providers to show which score components the consolidation changed.
+ */
+public class DuplicateConstraintProvider extends TimeTableConstraintProvider {
+
+    @Override
+    public Constraint[] defineConstraints(ConstraintFactory factory) {
+        return Stream.concat(Arrays.stream(super.defineConstraints(factory)), Stream.of(
+                teacherConflict(factory),
+                studentGroupConflict(factory),
+                batchTimeConflict(factory),
+                onlyLabCoursesInLabRooms(factory)))
+                .toArray(Constraint[]::new);
+    }
+
+    // Same slot pairs, already matched by Faculty Time Conflict
+    private Constraint teacherConflict(ConstraintFactory factory) {
+        return factory.forEachUniquePair(Lesson.class,
+                        Joiners.equal(Lesson::getFaculty),
+                        Joiners.equal(Lesson::getTimeSlot))
+                .penalize(HardSoftScore.ONE_HARD.multiply(10))
+                .asConstraint("Teacher conflict");
+    }
+
+    // Same slot pairs, already matched by Student batch time conflict
+    private Constraint studentGroupConflict(ConstraintFactory factory) {
+        return factory.forEachUniquePair(Lesson.class,
+                        Joiners.equal(Lesson::getStudentBatch),
+                        Joiners.equal(Lesson::getTimeSlot))
+                .penalize(HardSoftScore.ONE_HARD.multiply(10))
+                .asConstraint("Student group conflict");
+    }
+
+    // Same slot pairs in both orders, already matched by Student batch time conflict
+    private Constraint batchTimeConflict(ConstraintFactory factory) {
+        return factory.forEach(Lesson.class)
+                .filter(lesson -> lesson.getTimeSlot().getDay() != null)
+                .join(Lesson.class,
+                        Joiners.equal(lesson -> lesson.getTimeSlot().getDayIndex()),
+                        Joiners.equal(Lesson::getTimeSlot),
+                        Joiners.equal(Lesson::getStudentBatch),
+                        Joiners.filtering((lesson1, lesson2) -> lesson1 != lesson2))
+                .penalize(HardSoftScore.ONE_HARD.multiply(10))
+                .asConstraint("Batch Time Conflict");
+    }
+
+    // Identical to Lecture in regular rooms
+    private Constraint onlyLabCoursesInLabRooms(ConstraintFactory factory) {
+        return factory.forEach(Lesson.class)
+                .filter(lesson -> !lesson.getCourse().isLabCourse())
+                .filter(lesson -> lesson.getRoom().getType() == RoomType.COMPUTER_LAB
+                        || lesson.getRoom().getType() == RoomType.HARDWARE_LAB)
+                .penalize(HardSoftScore.ONE_HARD.multiply(10))
+                .asConstraint("Only lab courses in lab rooms");
+    }
+}
@@ -0,0 +1,176 @@
+package com.timetable.benchmark;
+
+import com.timetable.TimeTableApp;
+import com.timetable.domain.Lesson;
+import com.timetable.domain.TimeSlot;
+import com.timetable.domain.TimeTable;
+import com.timetable.solver.SolverOptions;
+import com.timetable.solver.TimeTableSolverConfig;
+import org.optaplanner.core.api.score.buildin.hardsoft.HardSoftScore;
+import org.optaplanner.core.api.score.stream.ConstraintProvider;
+import org.optaplanner.core.api.solver.SolverFactory;
+import org.optaplanner.core.config.score.director.ScoreDirectorFactoryConfig;
+import org.optaplanner.core.config.solver.SolverConfig;
+import org.optaplanner.core.impl.score.director.InnerScoreDirector;
+import org.optaplanner.core.impl.solver.DefaultSolverFactory;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+/**
+ * Counts the tuples that the joins of the pair constraints hand on to the rest of their constraint, inside the
+ * score director, once with the joins those constraints had before they were indexed on day and overlap
+ * (UnindexedJoinConstraintProvider) and once with the ones they have now (CountingConstraintProvider). Every
+ * lesson starts on a seeded random slot of its range, as in ScoreCalculationBenchmark. The counts cover the first
+ * calculation, then the same seeded change moves, each followed by a score calculation. Both runs must end on the
+ * same score. The datasets are the shipped CSVs and scaled copies of them, plus directories written by
+ * DatasetGenerator.
+ *
+ * Arguments: --scales=1,10 --datasets=directory,... --moves=n --seed=n --output=directory
+ * Run with: mvn -Pbenchmark compile exec:exec@join-tuple-count [-Djoin.tuple.count.args="--scales=1,10"]
+ */
+public class JoinTupleCount {
+    private static final Logger logger = Logger.getLogger(JoinTupleCount.class.getName());
+    private static final List<String> CONSTRAINT_NAMES = List.of(CountingConstraintProvider.BATCH_CLASH,
+            CountingConstraintProvider.FACULTY_CLASH, CountingConstraintProvider.MINOR_ROOM_CLASH);
+
+    private List<Integer> scales = List.of(1, 10);
+    private List<Path> datasets = List.of();
+    private int moves = 10_000;
+    private long seed = 0L;
+    private Path outputDirectory = Paths.get("target", "join-tuple-count");
+
+    public static void main(String[] args) {
+        try {
+            parse(args).run();
+        } catch (Exception e) {
+            logger.log(Level.SEVERE, "Join tuple count failed", e);
+            System.exit(1);
+        }
+    }
+
+    private static JoinTupleCount parse(String[] args) {
+        JoinTupleCount count = new JoinTupleCount();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            String name = separator >= 0 ? arg.substring(0, separator) : arg;
+            String value = separator >= 0 ? arg.substring(separator + 1).trim() : "";
+            switch (name) {
+                case "--scales":
+                    count.scales = Arrays.stream(value.split(",")).map(String::trim).map(Integer::valueOf)
+                            .collect(Collectors.toList());
+                    break;
+                case "--datasets":
+                    count.datasets = Arrays.stream(value.split(",")).map(String::trim).map(Paths::get)
+                            .collect(Collectors.toList());
+                    break;
+                case "--moves":
+                    count.moves = Integer.parseInt(value);
+                    break;
+                case "--seed":
+                    count.seed = Long.parseLong(value);
+                    break;
+                case "--output":
+                    count.outputDirectory = Paths.get(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown argument: " + arg);
+            }
+        }
+        return count;
+    }
+
+    private void run() throws Exception {
+        Logger.getLogger("").setLevel(Level.WARNING); // TimeTableApp logs every lesson it creates
+        for (int scale : scales) {
+            Path dataDirectory = scale == 1 ? Paths.get("")
+                    : ScaledDataset.write(Paths.get(""), scale, outputDirectory.resolve("datasets").resolve("x" + scale));
+            report("x" + scale, TimeTableApp.loadProblem(dataDirectory));
+        }
+        for (Path dataDirectory : datasets) {
+            report(dataDirectory.getFileName().toString(), TimeTableApp.loadProblem(dataDirectory));
+        }
+    }
+
+    private void report(String datasetName, TimeTable problem) {
+        Measurement before = measure(problem, UnindexedJoinConstraintProvider.class);
+        Measurement after = measure(problem, CountingConstraintProvider.class);
+        if (!before.score.equals(after.score)) {
+            throw new IllegalStateException(String.format("%s: the unindexed joins score %s, the indexed joins %s",
+                    datasetName, before.score, after.score));
+        }
+
+        StringBuilder report = new StringBuilder(String.format(
+                "%s: %d lessons, %d moves, score %s%n  %-30s %14s %14s %14s %14s",
+                datasetName, BenchmarkProblems.allLessons(problem).size(), moves, after.score,
+                "constraint", "first before", "first after", "moves before", "moves after"));
+        for (String constraintName : CONSTRAINT_NAMES) {
+            report.append(String.format("%n  %-30s %14d %14d %14d %14d", constraintName,
+                    before.firstCounts.getOrDefault(constraintName, 0L), after.firstCounts.getOrDefault(constraintName, 0L),
+                    before.moveCounts.getOrDefault(constraintName, 0L), after.moveCounts.getOrDefault(constraintName, 0L)));
+        }
+        report.append(String.format("%n  %-30s %14d %14d", "moves per second",
+                before.movesPerSecond(moves), after.movesPerSecond(moves)));
+        logger.warning(report.toString());
+    }
+
+    // Scores the problem from its seeded random start, then applies the seeded moves, counting the join tuples of each
+    private Measurement measure(TimeTable problem, Class<? extends ConstraintProvider> constraintProviderClass) {
+        List<Lesson> lessons = BenchmarkProblems.allLessons(problem);
+        Random random = new Random(seed);
+        for (Lesson lesson : lessons) {
+            lesson.setTimeSlot(BenchmarkProblems.randomTimeSlot(lesson, random));
+        }
+        Measurement measurement = new Measurement();
+        try (InnerScoreDirector<TimeTable, HardSoftScore> scoreDirector = buildScoreDirector(constraintProviderClass)) {
+            CountingConstraintProvider.resetCounts();
+            scoreDirector.setWorkingSolution(problem);
+            scoreDirector.calculateScore();
+            measurement.firstCounts = CountingConstraintProvider.counts();
+
+            CountingConstraintProvider.resetCounts();
+            long start = System.nanoTime();
+            for (int move = 0; move < moves; move++) {
+                Lesson lesson = lessons.get(random.nextInt(lessons.size()));
+                TimeSlot timeSlot = BenchmarkProblems.randomTimeSlot(lesson, random);
+                scoreDirector.beforeVariableChanged(lesson, "timeSlot");
+                lesson.setTimeSlot(timeSlot);
+                scoreDirector.afterVariableChanged(lesson, "timeSlot");
+                scoreDirector.calculateScore();
+            }
+            measurement.moveNanos = System.nanoTime() - start;
+            measurement.moveCounts = CountingConstraintProvider.counts();
+            measurement.score = scoreDirector.calculateScore();
+        }
+        return measurement;
+    }
+
+    private static InnerScoreDirector<TimeTable, HardSoftScore> buildScoreDirector(
+            Class<? extends ConstraintProvider> constraintProviderClass) {
+        SolverConfig solverConfig = TimeTableSolverConfig.create(SolverOptions.MOVE_THREADS_NONE, Duration.ofSeconds(1),
+                SolverOptions.SCORE_CALCULATOR_STREAMS);
+        solverConfig.withScoreDirectorFactory(new ScoreDirectorFactoryConfig()
+                .withConstraintProviderClass(constraintProviderClass));
+        DefaultSolverFactory<TimeTable> solverFactory = (DefaultSolverFactory<TimeTable>) SolverFactory.<TimeTable>create(solverConfig);
+        return solverFactory.<HardSoftScore>getScoreDirectorFactory().buildScoreDirector(false, false);
+    }
+
+    private static class Measurement {
+        private Map<String, Long> firstCounts;
+        private Map<String, Long> moveCounts;
+        private long moveNanos;
+        private HardSoftScore score;
+
+        private long movesPerSecond(int moves) {
+            return moveNanos == 0 ? 0 : moves * 1_000_000_000L / moveNanos;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.timetable.benchmark;
+
+import com.opencsv.CSVReader;
+import com.opencsv.CSVWriter;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Writes a copy of a CSV dataset in which every faculty, room, course, batch and minor appears factor times.
+ * Each copy gets ids offset by the largest id of its file and references offset the same way, so the copies
+ * only share the time slot grid and compete for nothing else.
+ */
+public class ScaledDataset {
+    private static final String[] FILES = {"faculty.csv", "rooms.csv", "courses.csv", "batches.csv", "minor.csv"};
+
+    private ScaledDataset() {}
+
+    public static Path write(Path sourceDirectory, int factor, Path targetDirectory) throws IOException {
+        Files.createDirectories(targetDirectory);
+        long facultyStride = maxId(sourceDirectory.resolve("faculty.csv"));
+        long roomStride = maxId(sourceDirectory.resolve("rooms.csv"));
+        long courseStride = maxId(sourceDirectory.resolve("courses.csv"));
+        long batchStride = maxId(sourceDirectory.resolve("batches.csv"));
+        long minorStride = maxId(sourceDirectory.resolve("minor.csv"));
+
+        // Column index -> id stride of the file it refers to, and the name columns that get a copy suffix
+        scale(sourceDirectory, targetDirectory, FILES[0], factor, Map.of(0, facultyStride), Set.of(1));
+        scale(sourceDirectory, targetDirectory, FILES[1], factor, Map.of(0, roomStride), Set.of(1));
+        scale(sourceDirectory, targetDirectory, FILES[2], factor,
+                Map.of(0, courseStride, 4, batchStride, 10, facultyStride), Set.of(1, 2));
+        scale(sourceDirectory, targetDirectory, FILES[3], factor,
+                Map.of(0, batchStride, 4, courseStride, 5, roomStride, 6, roomStride), Set.of(1));
+        scale(sourceDirectory, targetDirectory, FILES[4], factor,
+                Map.of(0, minorStride, 10, facultyStride, 11, roomStride), Set.of(1, 2));
+        return targetDirectory;
+    }
+
+    private static void scale(Path sourceDirectory, Path targetDirectory, String file, int factor,
+                              Map<Integer, Long> idStrides, Set<Integer> nameColumns) throws IOException {
+        List<String[]> rows = readRows(sourceDirectory.resolve(file));
+        try (Writer writer = Files.newBufferedWriter(targetDirectory.resolve(file));
+             CSVWriter csvWriter = new CSVWriter(writer)) {
+            csvWriter.writeNext(rows.get(0), false);
+            for (int copy = 0; copy < factor; copy++) {
+                for (String[] row : rows.subList(1, rows.size())) {
+                    csvWriter.writeNext(copyRow(row, copy, idStrides, nameColumns), false);
+                }
+            }
+        }
+    }
+
+    private static String[] copyRow(String[] row, int copy, Map<Integer, Long> idStrides, Set<Integer> nameColumns) {
+        String[] copied = row.clone();
+        if (copy == 0) {
+            return copied;
+        }
+        for (Map.Entry<Integer, Long> column : idStrides.entrySet()) {
+            if (column.getKey() < copied.length) {
+                copied[column.getKey()] = offsetIds(copied[column.getKey()], copy * column.getValue());
+            }
+        }
+        for (int column : nameColumns) {
+            if (column < copied.length) {
+                copied[column] = copied[column].trim() + "_" + copy;
+            }
+        }
+        return copied;
+    }
+
+    // Offsets every numeric id of a ';' separated list, leaving markers like ALL untouched
+    private static String offsetIds(String ids, long offset) {
+        return Arrays.stream(ids.split(";"))
+                .map(String::trim)
+                .map(id -> id.matches("-?\\d+") && Long.parseLong(id) > 0 ? String.valueOf(Long.parseLong(id) + offset) : id)
+                .collect(Collectors.joining(";"));
+    }
+
+    private static long maxId(Path file) throws IOException {
+        List<String[]> rows = readRows(file);
+        long maxId = 0;
+        for (String[] row : rows.subList(1, rows.size())) {
+            maxId = Math.max(maxId, Long.parseLong(row[0].trim()));
+        }
+        return maxId;
+    }
+
+    // Header and data rows, without the comment and blank lines CSVDataLoader also skips
+    private static List<String[]> readRows(Path file) throws IOException {
+        String content = Files.readAllLines(file).stream()
+                .filter(line -> !line.trim().startsWith("#") && !line.trim().isEmpty())
+                .collect(Collectors.joining("\n"));
+        try (Reader reader = new StringReader(content); CSVReader csvReader = new CSVReader(reader)) {
+            return new ArrayList<>(csvReader.readAll());
+        } catch (Exception e) {
+            throw new IOException("Cannot read " + file, e);
+        }
+    }
+}
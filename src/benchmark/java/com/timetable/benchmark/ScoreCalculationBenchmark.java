@@ -0,0 +1,139 @@
+package com.timetable.benchmark;
+
+import com.timetable.domain.Lesson;
+import com.timetable.domain.TimeSlot;
+import com.timetable.domain.TimeTable;
+import com.timetable.solver.SolverOptions;
+import com.timetable.solver.TimeTableSolverConfig;
+import org.optaplanner.core.api.score.buildin.hardsoft.HardSoftScore;
+import org.optaplanner.core.api.solver.SolverFactory;
+import org.optaplanner.core.config.score.director.ScoreDirectorFactoryConfig;
+import org.optaplanner.core.config.solver.SolverConfig;
+import org.optaplanner.core.impl.score.director.InnerScoreDirector;
+import org.optaplanner.core.impl.solver.DefaultSolverFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures score calculation on the shipped dataset: a full calculation from scratch, and a single
+ * time slot change followed by an incremental recalculation, which is what every solver move costs.
+ * Each constraint is also measured on its own, next to the complete stream provider and the
+ * incremental calculator.
+ *
+ * Run a subset with, for example: mvn -Pbenchmark compile exec:exec -Djmh.args="ScoreCalculationBenchmark -p calculator=STREAMS,INCREMENTAL"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ScoreCalculationBenchmark {
+    private static final int MOVE_COUNT = 4096; // Precomputed moves, cycled so the benchmark never calls Random
+    private static final long SEED = 0L;
+
+    // STREAMS for the whole provider, INCREMENTAL for the hand-written calculator, otherwise a single constraint
+    @Param({
+            SolverOptions.SCORE_CALCULATOR_STREAMS,
+            SolverOptions.SCORE_CALCULATOR_INCREMENTAL,
+            "Room conflict",
+            "Room capacity",
+            "Teacher qualification",
+            "Weekly lab scheduling",
+            "Lab room assignment",
+            "Only one lab per batch per day",
+            "Lecture in regular rooms",
+            "Predefined room assignment",
+            "No classes during lunch hour per year group",
+            "Single course per day for batch",
+            "Lab classes must be scheduled in designated time slots per batch",
+            "Balance batch load",
+            "Balance faculty load",
+            "Balance room load",
+            "Room stability",
+            "Minimize room changes",
+            "Prefer contiguous lessons",
+            "Preferred start time",
+            "Balance daily batch load",
+            "Contiguous lessons",
+            "Minimize gaps in schedule",
+            "Minors must be assigned to valid rooms",
+            "Minor courses must be scheduled at 6:00 PM",
+            "No room conflicts for minors",
+            "Lecture classes should not be in 2-hour slots",
+            "Lab classes must be scheduled in 2-hour slots",
+            "Faculty Time Conflict",
+            "Faculty Teaching Multiple Batches Simultaneously",
+            "Student batch time conflict",
+            "BatchTimeSlotCompatibility",
+            "Max two classes per day for a teacher per batch",
+            "Two hour slots must be LAB type in practical rooms",
+            "Sessions under 2 hours must be LECTURE type in lecture rooms",
+            "Minimize changes to the original timetable"
+    })
+    public String calculator;
+
+    private TimeTable problem;
+    private InnerScoreDirector<TimeTable, HardSoftScore> scoreDirector;
+    private Lesson[] moveLessons;
+    private TimeSlot[] moveTimeSlots;
+    private int moveIndex;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        problem = BenchmarkProblems.loadShippedProblem(SEED);
+        scoreDirector = buildScoreDirector(calculator);
+        scoreDirector.setWorkingSolution(problem);
+
+        List<Lesson> lessons = BenchmarkProblems.allLessons(problem);
+        Random random = new Random(SEED);
+        moveLessons = new Lesson[MOVE_COUNT];
+        moveTimeSlots = new TimeSlot[MOVE_COUNT];
+        for (int i = 0; i < MOVE_COUNT; i++) {
+            moveLessons[i] = lessons.get(random.nextInt(lessons.size()));
+            moveTimeSlots[i] = BenchmarkProblems.randomTimeSlot(moveLessons[i], random);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        scoreDirector.close();
+    }
+
+    // Rebuilds the score from scratch, as after loading a problem or a problem change
+    @Benchmark
+    public HardSoftScore fullScoreCalculation() {
+        scoreDirector.setWorkingSolution(problem);
+        return scoreDirector.calculateScore();
+    }
+
+    // Moves one lesson to another slot of its range and recalculates incrementally, like a change move
+    @Benchmark
+    public HardSoftScore singleMoveScoreCalculation() {
+        int move = moveIndex++ & (MOVE_COUNT - 1);
+        Lesson lesson = moveLessons[move];
+        scoreDirector.beforeVariableChanged(lesson, "timeSlot");
+        lesson.setTimeSlot(moveTimeSlots[move]);
+        scoreDirector.afterVariableChanged(lesson, "timeSlot");
+        return scoreDirector.calculateScore();
+    }
+
+    private static InnerScoreDirector<TimeTable, HardSoftScore> buildScoreDirector(String calculator) {
+        SolverConfig solverConfig = TimeTableSolverConfig.create(SolverOptions.MOVE_THREADS_NONE, Duration.ofSeconds(1),
+                calculator.equals(SolverOptions.SCORE_CALCULATOR_INCREMENTAL)
+                        ? SolverOptions.SCORE_CALCULATOR_INCREMENTAL
+                        : SolverOptions.SCORE_CALCULATOR_STREAMS);
+        if (!calculator.equals(SolverOptions.SCORE_CALCULATOR_STREAMS)
+                && !calculator.equals(SolverOptions.SCORE_CALCULATOR_INCREMENTAL)) {
+            SingleConstraintProvider.select(calculator);
+            solverConfig.withScoreDirectorFactory(new ScoreDirectorFactoryConfig()
+                    .withConstraintProviderClass(SingleConstraintProvider.class));
+        }
+        DefaultSolverFactory<TimeTable> solverFactory = (DefaultSolverFactory<TimeTable>) SolverFactory.<TimeTable>create(solverConfig);
+        return solverFactory.<HardSoftScore>getScoreDirectorFactory().buildScoreDirector(false, false);
+    }
+}
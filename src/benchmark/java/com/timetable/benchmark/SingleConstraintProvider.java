@@ -0,0 +1,33 @@
+package com.timetable.benchmark;
+
+import com.timetable.score.TimeTableConstraintProvider;
+import org.optaplanner.core.api.score.stream.Constraint;
+import org.optaplanner.core.api.score.stream.ConstraintFactory;
+import org.optaplanner.core.api.score.stream.ConstraintProvider;
+
+import java.util.Arrays;
+
+/**
+ * Exposes one constraint of TimeTableConstraintProvider on its own, so its cost can be measured in isolation.
+ * OptaPlanner instantiates providers by class, so the constraint is chosen through a static field that must be
+ * set before the SolverFactory is created.
+ */
+public class SingleConstraintProvider implements ConstraintProvider {
+    private static volatile String constraintName;
+
+    public static void select(String name) {
+        constraintName = name;
+    }
+
+    @Override
+    public Constraint[] defineConstraints(ConstraintFactory factory) {
+        Constraint[] constraints = new TimeTableConstraintProvider().defineConstraints(factory);
+        Constraint[] selected = Arrays.stream(constraints)
+                .filter(constraint -> constraint.getConstraintName().equals(constraintName))
+                .toArray(Constraint[]::new);
+        if (selected.length == 0) {
+            throw new IllegalArgumentException("Unknown constraint: " + constraintName);
+        }
+        return selected;
+    }
+}
@@ -0,0 +1,251 @@
+package com.timetable.benchmark;
+
+import ch.qos.logback.classic.Level;
+import com.timetable.TimeTableApp;
+import com.timetable.domain.TimeTable;
+import com.timetable.solver.SolverOptions;
+import com.timetable.solver.TimeTableSolverConfig;
+import org.optaplanner.benchmark.api.PlannerBenchmark;
+import org.optaplanner.benchmark.api.PlannerBenchmarkFactory;
+import org.optaplanner.benchmark.config.PlannerBenchmarkConfig;
+import org.optaplanner.benchmark.config.ProblemBenchmarksConfig;
+import org.optaplanner.benchmark.config.SolverBenchmarkConfig;
+import org.optaplanner.benchmark.config.statistic.ProblemStatisticType;
+import org.optaplanner.benchmark.config.statistic.SingleStatisticType;
+import org.optaplanner.benchmark.impl.DefaultPlannerBenchmark;
+import org.optaplanner.benchmark.impl.result.SingleBenchmarkResult;
+import org.optaplanner.benchmark.impl.result.SolverBenchmarkResult;
+import org.optaplanner.benchmark.impl.result.SubSingleBenchmarkResult;
+import org.optaplanner.benchmark.impl.statistic.SubSingleStatistic;
+import org.optaplanner.benchmark.impl.statistic.bestscore.BestScoreStatisticPoint;
+import org.optaplanner.core.api.score.buildin.hardsoft.HardSoftScore;
+import org.optaplanner.core.config.constructionheuristic.ConstructionHeuristicPhaseConfig;
+import org.optaplanner.core.config.constructionheuristic.ConstructionHeuristicType;
+import org.optaplanner.core.config.heuristic.selector.move.generic.ChangeMoveSelectorConfig;
+import org.optaplanner.core.config.localsearch.LocalSearchPhaseConfig;
+import org.optaplanner.core.config.localsearch.LocalSearchType;
+import org.optaplanner.core.config.localsearch.decider.acceptor.LocalSearchAcceptorConfig;
+import org.optaplanner.core.config.localsearch.decider.forager.LocalSearchForagerConfig;
+import org.optaplanner.core.config.solver.SolverConfig;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+/**
+ * Runs the OptaPlanner benchmarker over a list of named solver configurations against the shipped dataset
+ * and scaled copies of it. The HTML report with best score over time, score calculation speed, moves selected
+ * and accepted per step and the step score gain per picked move type lands in the output directory, next to
+ * a summary.csv with the best score, time to the first feasible score and speed of every configuration and
+ * dataset.
+ *
+ * Directories written by DatasetGenerator can be added with --datasets.
+ *
+ * Arguments: --configs=name,... --scales=1,2,... --datasets=directory,... --seconds=n --output=directory
+ * Run with: mvn -Pbenchmark compile exec:exec@solver-benchmark -Dsolver.benchmark.args="--scales=1,4 --seconds=120"
+ */
+public class SolverBenchmarkSuite {
+    private static final Logger logger = Logger.getLogger(SolverBenchmarkSuite.class.getName());
+
+    // Every configuration gets the same deadline, so the report compares what each reaches in that time
+    private static final Map<String, Function<Duration, SolverConfig>> CONFIGURATIONS = new LinkedHashMap<>();
+
+    static {
+        CONFIGURATIONS.put("late-acceptance", spentLimit -> localSearch(spentLimit, new LocalSearchPhaseConfig()
+                .withAcceptorConfig(new LocalSearchAcceptorConfig().withLateAcceptanceSize(400))
+                .withForagerConfig(new LocalSearchForagerConfig().withAcceptedCountLimit(1))));
+        CONFIGURATIONS.put("tabu-search", spentLimit -> localSearch(spentLimit, new LocalSearchPhaseConfig()
+                .withLocalSearchType(LocalSearchType.TABU_SEARCH)));
+        CONFIGURATIONS.put("simulated-annealing", spentLimit -> localSearch(spentLimit, new LocalSearchPhaseConfig()
+                .withAcceptorConfig(new LocalSearchAcceptorConfig().withSimulatedAnnealingStartingTemperature("10hard/500soft"))
+                .withForagerConfig(new LocalSearchForagerConfig().withAcceptedCountLimit(1))));
+        CONFIGURATIONS.put("hill-climbing", spentLimit -> localSearch(spentLimit, new LocalSearchPhaseConfig()
+                .withLocalSearchType(LocalSearchType.HILL_CLIMBING)));
+        CONFIGURATIONS.put("change-moves-only", spentLimit -> localSearch(spentLimit, new LocalSearchPhaseConfig()
+                .withMoveSelectorConfig(new ChangeMoveSelectorConfig())));
+        CONFIGURATIONS.put("nearby-selection", spentLimit -> localSearch(spentLimit,
+                TimeTableSolverConfig.createLocalSearchPhase(true)));
+        CONFIGURATIONS.put("cheapest-insertion", spentLimit -> baseConfig(spentLimit, SolverOptions.MOVE_THREADS_NONE,
+                SolverOptions.SCORE_CALCULATOR_STREAMS).withPhases(
+                new ConstructionHeuristicPhaseConfig().withConstructionHeuristicType(ConstructionHeuristicType.CHEAPEST_INSERTION),
+                new LocalSearchPhaseConfig()));
+        CONFIGURATIONS.put("move-threads-auto", spentLimit -> baseConfig(spentLimit,
+                new SolverOptions().resolveMoveThreadCount(), SolverOptions.SCORE_CALCULATOR_STREAMS));
+        CONFIGURATIONS.put("incremental-score", spentLimit -> baseConfig(spentLimit, SolverOptions.MOVE_THREADS_NONE,
+                SolverOptions.SCORE_CALCULATOR_INCREMENTAL));
+        CONFIGURATIONS.put("partitioned", spentLimit -> {
+            SolverOptions options = new SolverOptions();
+            options.setMoveThreadCount(SolverOptions.MOVE_THREADS_NONE);
+            options.setSpentLimit(spentLimit);
+            options.setPartitioned(true);
+            return TimeTableSolverConfig.create(options);
+        });
+    }
+
+    private List<String> configurationNames = new ArrayList<>(CONFIGURATIONS.keySet());
+    private List<Integer> scales = List.of(1, 2);
+    private List<Path> datasets = List.of();
+    private Duration spentLimit = Duration.ofSeconds(60);
+    private Path outputDirectory = Paths.get("target", "solver-benchmarks");
+
+    public static void main(String[] args) {
+        try {
+            SolverBenchmarkSuite suite = parse(args);
+            suite.run();
+        } catch (Exception e) {
+            logger.log(java.util.logging.Level.SEVERE, "Solver benchmark failed", e);
+            System.exit(1);
+        }
+    }
+
+    private static SolverBenchmarkSuite parse(String[] args) {
+        SolverBenchmarkSuite suite = new SolverBenchmarkSuite();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            String name = separator >= 0 ? arg.substring(0, separator) : arg;
+            String value = separator >= 0 ? arg.substring(separator + 1).trim() : "";
+            switch (name) {
+                case "--configs":
+                    suite.configurationNames = Arrays.asList(value.split(","));
+                    for (String configurationName : suite.configurationNames) {
+                        if (!CONFIGURATIONS.containsKey(configurationName)) {
+                            throw new IllegalArgumentException("Unknown configuration " + configurationName
+                                    + ", expected one of " + CONFIGURATIONS.keySet());
+                        }
+                    }
+                    break;
+                case "--scales":
+                    suite.scales = Arrays.stream(value.split(",")).map(String::trim).map(Integer::valueOf)
+                            .collect(Collectors.toList());
+                    break;
+                case "--datasets":
+                    suite.datasets = Arrays.stream(value.split(",")).map(String::trim).map(Paths::get)
+                            .collect(Collectors.toList());
+                    break;
+                case "--seconds":
+                    suite.spentLimit = Duration.ofSeconds(Long.parseLong(value));
+                    break;
+                case "--output":
+                    suite.outputDirectory = Paths.get(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown argument: " + arg);
+            }
+        }
+        return suite;
+    }
+
+    private void run() throws IOException {
+        // Step-level solver logging would dominate the run time
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger("org.optaplanner")).setLevel(Level.WARN);
+        java.util.logging.Logger.getLogger("").setLevel(java.util.logging.Level.WARNING);
+
+        List<String> datasetNames = new ArrayList<>();
+        List<TimeTable> problems = new ArrayList<>();
+        for (int scale : scales) {
+            Path dataDirectory = scale == 1 ? Paths.get("")
+                    : ScaledDataset.write(Paths.get(""), scale, outputDirectory.resolve("datasets").resolve("x" + scale));
+            datasetNames.add("x" + scale);
+            problems.add(TimeTableApp.loadProblem(dataDirectory));
+        }
+        for (Path dataDirectory : datasets) {
+            datasetNames.add(dataDirectory.getFileName().toString());
+            problems.add(TimeTableApp.loadProblem(dataDirectory));
+        }
+
+        List<SolverBenchmarkConfig> solverBenchmarkConfigs = new ArrayList<>();
+        for (String configurationName : configurationNames) {
+            solverBenchmarkConfigs.add(new SolverBenchmarkConfig()
+                    .withName(configurationName)
+                    .withSolverConfig(CONFIGURATIONS.get(configurationName).apply(spentLimit)));
+        }
+        PlannerBenchmarkConfig benchmarkConfig = new PlannerBenchmarkConfig()
+                .withBenchmarkDirectory(outputDirectory.toFile())
+                .withInheritedSolverBenchmarkConfig(new SolverBenchmarkConfig()
+                        .withProblemBenchmarksConfig(new ProblemBenchmarksConfig()
+                                .withWriteOutputSolutionEnabled(false)
+                                .withProblemStatisticTypes(ProblemStatisticType.BEST_SCORE,
+                                        ProblemStatisticType.SCORE_CALCULATION_SPEED,
+                                        ProblemStatisticType.MOVE_COUNT_PER_STEP)
+                                .withSingleStatisticTypes(SingleStatisticType.PICKED_MOVE_TYPE_STEP_SCORE_DIFF)))
+                .withSolverBenchmarkConfigList(solverBenchmarkConfigs);
+
+        logger.warning(String.format("Benchmarking %d configurations on datasets %s for %d seconds each",
+                configurationNames.size(), datasetNames, spentLimit.getSeconds()));
+        PlannerBenchmark benchmark = PlannerBenchmarkFactory.create(benchmarkConfig).buildPlannerBenchmark(problems);
+        benchmark.benchmark();
+
+        DefaultPlannerBenchmark result = (DefaultPlannerBenchmark) benchmark;
+        File reportDirectory = result.getPlannerBenchmarkResult().getBenchmarkReportDirectory();
+        Path summary = reportDirectory.toPath().resolve("summary.csv");
+        writeSummary(result, datasetNames, summary);
+        logger.warning("Benchmark report written to " + reportDirectory.toPath().resolve("index.html") + " and " + summary);
+    }
+
+    // One row per configuration and dataset, in the order the problems were given to the benchmarker
+    private static void writeSummary(DefaultPlannerBenchmark benchmark, List<String> datasetNames, Path summary)
+            throws IOException {
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(summary))) {
+            writer.println("configuration,dataset,bestScore,feasible,timeToFeasibleMillis,scoreCalculationSpeed,timeSpentMillis");
+            for (SolverBenchmarkResult solverResult : benchmark.getPlannerBenchmarkResult().getSolverBenchmarkResultList()) {
+                List<SingleBenchmarkResult> singleResults = solverResult.getSingleBenchmarkResultList();
+                for (int i = 0; i < singleResults.size(); i++) {
+                    SubSingleBenchmarkResult median = singleResults.get(i).getMedian();
+                    Long timeToFeasible = timeToFeasibleMillis(median);
+                    writer.println(String.join(",",
+                            solverResult.getName(),
+                            i < datasetNames.size() ? datasetNames.get(i) : String.valueOf(i),
+                            String.valueOf(median.getScore()),
+                            String.valueOf(median.isScoreFeasible()),
+                            timeToFeasible != null ? timeToFeasible.toString() : "",
+                            String.valueOf(median.getScoreCalculationSpeed()),
+                            String.valueOf(median.getTimeMillisSpent())));
+                }
+            }
+        }
+    }
+
+    // Start of the feasible tail of the best score statistic, or null if the run did not end feasible.
+    // The hibernated points lose the init score, so an early 0hard point of the construction heuristic only
+    // counts when no infeasible best score follows it.
+    @SuppressWarnings("unchecked")
+    private static Long timeToFeasibleMillis(SubSingleBenchmarkResult result) {
+        SubSingleStatistic<TimeTable, BestScoreStatisticPoint> bestScoreStatistic =
+                result.getEffectiveSubSingleStatisticMap().get(ProblemStatisticType.BEST_SCORE);
+        if (bestScoreStatistic == null || !result.isScoreFeasible()) {
+            return null;
+        }
+        bestScoreStatistic.unhibernatePointList();
+        Long timeToFeasible = null;
+        for (BestScoreStatisticPoint point : bestScoreStatistic.getPointList()) {
+            if (((HardSoftScore) point.getScore()).hardScore() < 0) {
+                timeToFeasible = null;
+            } else if (timeToFeasible == null) {
+                timeToFeasible = point.getTimeMillisSpent();
+            }
+        }
+        return timeToFeasible;
+    }
+
+    private static SolverConfig localSearch(Duration spentLimit, LocalSearchPhaseConfig localSearchPhaseConfig) {
+        return baseConfig(spentLimit, SolverOptions.MOVE_THREADS_NONE, SolverOptions.SCORE_CALCULATOR_STREAMS)
+                .withPhases(new ConstructionHeuristicPhaseConfig(), localSearchPhaseConfig);
+    }
+
+    private static SolverConfig baseConfig(Duration spentLimit, String moveThreadCount, String scoreCalculator) {
+        return TimeTableSolverConfig.create(moveThreadCount, spentLimit, scoreCalculator);
+    }
+}
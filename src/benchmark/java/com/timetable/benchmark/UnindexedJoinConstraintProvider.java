@@ -0,0 +1,43 @@
+package com.timetable.benchmark;
+
+import com.timetable.domain.Lesson;
+import com.timetable.domain.SlotRelationTable;
+import org.optaplanner.core.api.score.stream.ConstraintFactory;
+import org.optaplanner.core.api.score.stream.Joiners;
+import org.optaplanner.core.api.score.stream.bi.BiConstraintStream;
+
+/**
+ * CountingConstraintProvider with the pair constraints joined the way they were before they were indexed on day
+ * and slot overlap. The counters sit right behind these wider joins, so JoinTupleCount can compare the tuples
+ * each version hands on; whatever the old joins let through too much is filtered out after counting, so both
+ * providers produce the same score.
+ */
+public class UnindexedJoinConstraintProvider extends CountingConstraintProvider {
+
+    @Override
+    protected BiConstraintStream<Lesson, Lesson> facultyClashCandidates(ConstraintFactory factory) {
+        return counted(FACULTY_CLASH, factory.forEachUniquePair(Lesson.class,
+                Joiners.equal(Lesson::getFaculty),
+                Joiners.equal(lesson -> lesson.getTimeSlot().getDayIndex())));
+    }
+
+    @Override
+    protected BiConstraintStream<Lesson, Lesson> batchClashPairs(ConstraintFactory factory) {
+        return counted(BATCH_CLASH, factory.forEachUniquePair(Lesson.class,
+                        Joiners.equal(Lesson::getStudentBatch),
+                        Joiners.equal(lesson -> lesson.getTimeSlot().getDayIndex())))
+                .filter((lesson1, lesson2) ->
+                        hasRelation(lesson1.getTimeSlot(), lesson2.getTimeSlot(), SlotRelationTable.BATCH_CLASH));
+    }
+
+    // The old join also paired each minor lesson with itself
+    @Override
+    protected BiConstraintStream<Lesson, Lesson> minorRoomClashPairs(ConstraintFactory constraintFactory) {
+        return counted(MINOR_ROOM_CLASH, constraintFactory.forEach(Lesson.class)
+                        .filter(lesson -> lesson.getCourse().getCourseType().equals("minor"))
+                        .join(Lesson.class,
+                                Joiners.equal(Lesson::getRoom),
+                                Joiners.equal(Lesson::getTimeSlot)))
+                .filter((minorLesson, other) -> minorLesson != other);
+    }
+}
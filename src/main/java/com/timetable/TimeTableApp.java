@@ -1,19 +1,40 @@
 package com.timetable;
 
 import com.timetable.domain.*;
-import com.timetable.score.TimeTableConstraintProvider;
+import com.timetable.service.TimeTableServer;
+import com.timetable.solver.ConstructionReport;
+import com.timetable.solver.MoveTypeReport;
+import com.timetable.solver.PortfolioSolver;
+import com.timetable.solver.ProgressLog;
+import com.timetable.solver.RepairPlanner;
+import com.timetable.solver.SolverOptions;
+import com.timetable.solver.SolverProgressMonitor;
+import com.timetable.solver.SolverSession;
+import com.timetable.solver.ThreadScalingReport;
+import com.timetable.solver.TimeTableChanges;
+import com.timetable.solver.TimeTableSolverConfig;
 import com.timetable.util.CSVDataLoader;
+import com.timetable.util.Dataset;
+import com.timetable.util.DatasetLoader;
+import com.timetable.util.ProblemSnapshot;
+import com.timetable.util.SolutionImporter;
 import org.optaplanner.core.api.solver.Solver;
 import org.optaplanner.core.api.solver.SolverFactory;
 import org.optaplanner.core.config.solver.SolverConfig;
 
+import java.io.BufferedReader;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.time.Duration;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -85,42 +106,69 @@ public class TimeTableApp {
 
     public static void main(String[] args) {
         try {
-            // Load data from CSV files
-            List<Faculty> facultyList = CSVDataLoader.loadFaculty("faculty.csv");
-            List<Room> roomList = CSVDataLoader.loadRooms("rooms.csv");
-            List<Course> courseList = CSVDataLoader.loadCourses("courses.csv", facultyList);
-            List<Course> minorCourseList = CSVDataLoader.loadMinors("minor.csv", facultyList);
-            List<StudentBatch> batchList = CSVDataLoader.loadStudentBatches("batches.csv", courseList);
+            SolverOptions options = SolverOptions.parse(args);
 
-            if (facultyList.isEmpty() || roomList.isEmpty() || courseList.isEmpty()|| minorCourseList.isEmpty() || batchList.isEmpty())
-                throw new RuntimeException("Essential data missing");
-
-
-            List<TimeSlot> timeSlotList = new ArrayList<>();
-            for (StudentBatch batch : batchList) {
-                timeSlotList.addAll(createTimeSlots(batch));
+            if (options.isThreadReport()) {
+                ThreadScalingReport.run(() -> loadProblem(options), options);
+                return;
+            }
+            if (options.isServe()) {
+                // Jobs bring their own CSVs; the server's threads keep the JVM running
+                new TimeTableServer(TimeTableSolverConfig.create(options), options.getTerminationPolicy(), options.getPort(),
+                        options.getWorkers(), options.getQueueCapacity()).start();
+                return;
             }
-            List<TimeSlot> minorTimeSlotList = createMinorTimeSlots();
-            logger.info("Created " + timeSlotList.size() + " time slots");
 
-            // Create initial solution with categorized rooms
-            TimeTable problem = createInitialSolution(facultyList, roomList, timeSlotList, minorTimeSlotList, batchList, courseList, minorCourseList);
-            logger.info("Created initial solution with " + problem.getLessonList().size() + " lessons and " + problem.getMinorLessonList().size() + " minor lessons");
+            TimeTable problem = loadProblem(options);
+            if (options.getWarmStartFile() != null) {
+                SolutionImporter.seedTimeSlots(problem, options.getWarmStartFile());
+            }
+            if (options.getDisruption() != null) {
+                RepairPlanner.prepare(problem, options.getDisruption());
+            }
 
             // Configure solver
-            SolverConfig solverConfig = new SolverConfig()
-                    .withSolutionClass(TimeTable.class)
-                    .withEntityClasses(Lesson.class)
-                    .withConstraintProviderClass(TimeTableConstraintProvider.class)
-                    .withTerminationSpentLimit(Duration.ofMinutes(15));
+            SolverConfig solverConfig = TimeTableSolverConfig.create(options);
+            logger.info("Solving with move thread count " + solverConfig.getMoveThreadCount()
+                    + " and the " + options.getScoreCalculator() + " score calculator until the "
+                    + options.getTerminationPolicy());
 
             // Solve timetable
-            SolverFactory<TimeTable> solverFactory = SolverFactory.create(solverConfig);
-            Solver<TimeTable> solver = solverFactory.buildSolver();
-
-            logger.info("Starting solver...");
-            TimeTable solution = solver.solve(problem);
-            logger.info("Solver finished. Score: " + solution.getScore());
+            TimeTable solution;
+            String stoppedBy = null;
+            if (options.isSession()) {
+                solution = runSession(solverConfig, problem);
+            } else if (options.getPortfolioSize() > 0) {
+                PortfolioSolver portfolio = new PortfolioSolver(options, options.getPortfolioSize());
+                logger.info("Racing " + options.getPortfolioSize() + " solver configurations...");
+                solution = portfolio.solve(problem);
+                portfolio.logStatistics();
+                stoppedBy = portfolio.getWinner().getName() + " winning the race, "
+                        + portfolio.getWinner().getStoppedBy();
+            } else {
+                SolverFactory<TimeTable> solverFactory = SolverFactory.create(solverConfig);
+                Solver<TimeTable> solver = solverFactory.buildSolver();
+                ConstructionReport.attach(solver, options.getConstructionHeuristic().toString());
+                MoveTypeReport.attach(solver, options.isNearbySelection() ? "Nearby selection" : "Default moves");
+
+                logger.info("Starting solver...");
+                if (options.getProgressLogFile() != null) {
+                    try (ProgressLog progressLog = new ProgressLog(options.getProgressLogFile())) {
+                        SolverProgressMonitor monitor = new SolverProgressMonitor(solver,
+                                SolverProgressMonitor.createSolutionManager(solverConfig, solverFactory), progressLog);
+                        try {
+                            solution = solver.solve(problem);
+                        } finally {
+                            monitor.close(); // Delivers the last events before the progress log closes
+                        }
+                    }
+                } else {
+                    solution = solver.solve(problem);
+                }
+                stoppedBy = options.getTerminationPolicy().firedCondition(solver);
+            }
+            logger.info("Solver finished. Score: " + solution.getScore()
+                    + (stoppedBy != null ? ", stopped by the " + stoppedBy : ""));
 
             printSolution(solution);
 
@@ -132,6 +180,84 @@ public class TimeTableApp {
         }
     }
 
+    // Solves in the background and applies one change per line of standard input (see TimeTableChanges);
+    // "best" logs the best score so far, "stop" or the end of input ends the session
+    private static TimeTable runSession(SolverConfig solverConfig, TimeTable problem) throws Exception {
+        try (SolverSession session = new SolverSession(solverConfig)) {
+            logger.info("Starting solver session...");
+            session.start(problem);
+            BufferedReader input = new BufferedReader(new InputStreamReader(System.in));
+            String line;
+            while ((line = input.readLine()) != null) {
+                String command = line.trim();
+                if (command.isEmpty()) {
+                    continue;
+                }
+                if (command.equals("stop")) {
+                    break;
+                }
+                if (command.equals("best")) {
+                    logger.info("Best score so far: " + session.getBestSolution().getScore());
+                    continue;
+                }
+                try {
+                    session.submit(TimeTableChanges.parse(command));
+                } catch (IllegalArgumentException e) {
+                    logger.warning(e.getMessage());
+                }
+            }
+            return session.stop();
+        }
+    }
+
+    // Load data from the CSV files in the working directory and build the unsolved problem
+    public static TimeTable loadProblem() {
+        return loadProblem(Paths.get(""));
+    }
+
+    // Load the problem from the snapshot file while the CSVs in the working directory are unchanged,
+    // otherwise build it from them and rewrite the snapshot; without a snapshot file always build it
+    private static TimeTable loadProblem(SolverOptions options) {
+        Path snapshotFile = options.getSnapshotFile();
+        if (snapshotFile == null) {
+            return loadProblem();
+        }
+        Path dataDirectory = Paths.get("");
+        return ProblemSnapshot.loadOrBuild(dataDirectory, snapshotFile, () -> loadProblem(dataDirectory));
+    }
+
+    // Load data from the CSV files in the given directory and build the unsolved problem
+    public static TimeTable loadProblem(Path dataDirectory) {
+        // The dataset's lists are immutable; the problem gets its own copies to sort and hand to the solver
+        Dataset dataset = DatasetLoader.load(dataDirectory);
+        List<Faculty> facultyList = new ArrayList<>(dataset.getFacultyList());
+        List<Room> roomList = new ArrayList<>(dataset.getRoomList());
+        List<Course> courseList = new ArrayList<>(dataset.getCourseList());
+        List<Course> minorCourseList = new ArrayList<>(dataset.getMinorCourseList());
+        List<StudentBatch> batchList = new ArrayList<>(dataset.getBatchList());
+
+        if (facultyList.isEmpty() || roomList.isEmpty() || courseList.isEmpty()|| minorCourseList.isEmpty() || batchList.isEmpty())
+            throw new RuntimeException("Essential data missing");
+
+
+        // Every batch shares the catalogue's canonical slots, so each (day, time, type) exists exactly once
+        TimeSlotCatalogue timeSlotCatalogue = new TimeSlotCatalogue();
+        Map<Long, List<TimeSlot>> batchTimeSlots = new HashMap<>();
+        for (StudentBatch batch : batchList) {
+            batchTimeSlots.put(batch.getId(), createTimeSlots(batch, timeSlotCatalogue));
+        }
+        List<TimeSlot> timeSlotList = new ArrayList<>(timeSlotCatalogue.getTimeSlots());
+        List<TimeSlot> minorTimeSlotList = createMinorTimeSlots(timeSlotCatalogue);
+        timeSlotCatalogue.buildRelationTable();
+        logger.info("Created " + timeSlotList.size() + " time slots");
+
+        // Create initial solution with categorized rooms
+        TimeTable problem = createInitialSolution(facultyList, roomList, timeSlotList, minorTimeSlotList, batchTimeSlots, batchList, courseList, minorCourseList);
+        problem.setTimeSlotCatalogue(timeSlotCatalogue);
+        logger.info("Created initial solution with " + problem.getLessonList().size() + " lessons and " + problem.getMinorLessonList().size() + " minor lessons");
+        return problem;
+    }
+
 
 //    // Modified to create specific time slots for lectures and labs
 //    private static List<TimeSlot> createTimeSlots() {
@@ -153,10 +279,9 @@ public class TimeTableApp {
 //    }
 
     // MODIFY createTimeSlots method to handle year-specific slots
-    private static List<TimeSlot> createTimeSlots(StudentBatch batch) {
+    private static List<TimeSlot> createTimeSlots(StudentBatch batch, TimeSlotCatalogue timeSlotCatalogue) {
         List<TimeSlot> timeSlots = new ArrayList<>();
         String[] days = {"Monday", "Tuesday", "Wednesday", "Thursday", "Friday"};
-        Long id = 1L;
 
         // Determine which time slot definitions to use based on the batch year
         Object[][] selectedTimeSlotDefinitions;
@@ -184,16 +309,15 @@ public class TimeTableApp {
                 LocalTime endTime = (LocalTime) slotDef[1];
                 String slotType = (String) slotDef[2];
 
-                timeSlots.add(new TimeSlot(id++, day, startTime, endTime, slotType));
+                timeSlots.add(timeSlotCatalogue.intern(day, startTime, endTime, slotType));
             }
         }
         return timeSlots;
     }
 
-    private static List<TimeSlot> createMinorTimeSlots() {
+    private static List<TimeSlot> createMinorTimeSlots(TimeSlotCatalogue timeSlotCatalogue) {
         List<TimeSlot> minorTimeSlots = new ArrayList<>();
         String[] days = {"Monday", "Tuesday", "Wednesday", "Thursday", "Friday"};
-        Long id = 1L;
 
         // Create time slots for each day
         for (String day : days) {
@@ -202,7 +326,7 @@ public class TimeTableApp {
                 LocalTime endTime = (LocalTime) slotDef[1];
                 String slotType = (String) slotDef[2];
 
-                minorTimeSlots.add(new TimeSlot(id++, day, startTime, endTime, slotType));
+                minorTimeSlots.add(timeSlotCatalogue.intern(day, startTime, endTime, slotType));
             }
         }
         return minorTimeSlots;
@@ -213,6 +337,7 @@ public class TimeTableApp {
                                                    List<Room> roomList,
                                                    List<TimeSlot> timeSlotList,
                                                    List<TimeSlot> minorTimeSlotList,
+                                                   Map<Long, List<TimeSlot>> batchTimeSlots,
                                                    List<StudentBatch> batchList,
                                                    List<Course> courseList,
                                                    List<Course> minorCourseList) {
@@ -220,6 +345,8 @@ public class TimeTableApp {
         List<Lesson> minorLessonList = new ArrayList<>(); // Separate list for minor lessons
         Long lessonId = 1L;
 
+        Map<Long, Room> roomById = CSVDataLoader.indexById(roomList, Room::getId);
+
         // Sorting batches by ID to ensure lessons are created in batch ID order
         batchList.sort(Comparator.comparingLong(StudentBatch::getId));
 
@@ -232,9 +359,14 @@ public class TimeTableApp {
             List<Room> batchLectureRooms = new ArrayList<>();
             List<Room> batchPracticalRooms = new ArrayList<>();
 
+            // Value ranges for this batch's lessons, shared by every lesson of the same type
+            List<TimeSlot> batchSlots = batchTimeSlots.getOrDefault(batch.getId(), timeSlotList);
+            List<TimeSlot> lectureSlots = filterTimeSlots(batchSlots, "LECTURE");
+            List<TimeSlot> labSlots = filterTimeSlots(batchSlots, "LAB");
+
             // Load lecture rooms for this batch
             for (Long roomId : batch.getLectureRoomIDs()) {
-                Room room = getRoomById(roomId, roomList);
+                Room room = roomById.get(roomId);
                 if (room != null) {
                     batchLectureRooms.add(room);
                 } else {
@@ -244,7 +376,7 @@ public class TimeTableApp {
 
             // Load practical rooms for this batch
             for (Long roomId : batch.getPracticalRoomIDs()) {
-                Room room = getRoomById(roomId, roomList);
+                Room room = roomById.get(roomId);
                 if (room != null) {
                     batchPracticalRooms.add(room);
                 } else {
@@ -262,6 +394,7 @@ public class TimeTableApp {
                 for (int i = 0; i < course.getLectureHours(); i++) {
                     Lesson lesson = new Lesson(lessonId++, course, batch, roomList);
                     lesson.setLessonType("LECTURE");
+                    lesson.setTimeSlotRange(lectureSlots);
 
                     if (!batchLectureRooms.isEmpty()) {
                         Room lectureRoom = batchLectureRooms.get(i % batchLectureRooms.size());
@@ -285,6 +418,7 @@ public class TimeTableApp {
                 for (int i = 0; i < course.getTheoryHours(); i++) {
                     Lesson lesson = new Lesson(lessonId++, course, batch, roomList);
                     lesson.setLessonType("LECTURE");
+                    lesson.setTimeSlotRange(lectureSlots);
 
                     if (!batchLectureRooms.isEmpty()) {
                         Room lectureRoom = batchLectureRooms.get(i % batchLectureRooms.size());
@@ -308,6 +442,7 @@ public class TimeTableApp {
                 for (int i = 0; i < course.getPracticalHours(); i += 2) {
                     Lesson lesson = new Lesson(lessonId++, course, batch, roomList);
                     lesson.setLessonType("LAB");
+                    lesson.setTimeSlotRange(labSlots);
 
                     if (!batchPracticalRooms.isEmpty()) {
                         Room practicalRoom = batchPracticalRooms.get(i % batchPracticalRooms.size());
@@ -338,6 +473,13 @@ public class TimeTableApp {
                 .orElse(null);
 
         if (minorTimeSlot != null) {
+            List<TimeSlot> minorSlots = new ArrayList<>();
+            for (TimeSlot slot : minorTimeSlotList) {
+                if (slot.getStartTime().equals(minorTimeSlot.getStartTime()) && slot.getEndTime().equals(minorTimeSlot.getEndTime())) {
+                    minorSlots.add(slot);
+                }
+            }
+
             for (Course minorCourse : minorCourseList) {
                 if (minorCourse.getEligibleFaculty() == null || minorCourse.getEligibleFaculty().isEmpty()) {
                     logger.warning("Minor course " + minorCourse.getName() + " has no eligible faculty");
@@ -348,7 +490,7 @@ public class TimeTableApp {
 
                 // Load lecture rooms for this minor
                 for (Long roomId : minorCourse.getLectureRoomIDs()) {
-                    Room room = getRoomById(roomId, roomList);
+                    Room room = roomById.get(roomId);
                     if (room != null) {
                         minorLectureRooms.add(room);
                     } else {
@@ -376,6 +518,7 @@ public class TimeTableApp {
                 for (int i = 0; i < minorCourse.getLectureHours(); i++) {
                     Lesson minorLesson = new Lesson(lessonId++, minorCourse, roomList);
                     minorLesson.setLessonType("MINOR");
+                    minorLesson.setTimeSlotRange(minorSlots);
 
                     if (!minorLectureRooms.isEmpty()) {
                         Room minorRoom = minorLectureRooms.get(i % minorLectureRooms.size());
@@ -409,19 +552,18 @@ public class TimeTableApp {
     }
 
 
-    public static Room getRoomById(Long roomId, List<Room> roomList) {
-        if (roomId == null || roomList == null) {
-            return null;
-        }
-        for (Room room : roomList) {
-            if (room.getId().equals(roomId)) {
-                return room;
+    // Slots of the given type; falls back to all given slots when the year defines none of that type,
+    // so such lessons still get a value and the hard constraints report them
+    private static List<TimeSlot> filterTimeSlots(List<TimeSlot> slots, String slotType) {
+        List<TimeSlot> filtered = new ArrayList<>();
+        for (TimeSlot slot : slots) {
+            if (slotType.equals(slot.getSlotType())) {
+                filtered.add(slot);
             }
         }
-        return null; // Return null if no matching room is found
+        return filtered.isEmpty() ? slots : filtered;
     }
 
-
     // Print solution timetable
     private static void printSolution(TimeTable solution) {
         // Header
@@ -483,56 +625,60 @@ public class TimeTableApp {
     // Export solution to a CSV file
     private static void exportSolutionToCSV(TimeTable solution, String fileName) {
         try (FileWriter writer = new FileWriter(fileName)) {
-            writer.write("Day,Time,Room,Batch,Course,Type,Faculty\n");
-
-            solution.getLessonList().stream()
-                    .filter(lesson -> lesson.getTimeSlot() != null && lesson.getRoom() != null && lesson.getFaculty() != null)
-                    .sorted(Comparator.comparing((Lesson lesson) -> dayToIndex(lesson.getTimeSlot().getDay()))
-                            .thenComparing(lesson -> lesson.getStudentBatch().getBatchName())
-                            .thenComparing(lesson -> lesson.getTimeSlot().getStartTime()))
-                    .forEach(lesson -> {
-                        try {
-                            writer.write(String.format("%s,%s-%s,%s,%s,%s,%s,%s\n",
-                                    lesson.getTimeSlot().getDay(),
-                                    lesson.getTimeSlot().getStartTime(),
-                                    lesson.getTimeSlot().getEndTime(),
-                                    lesson.getRoom().getRoomNumber(),
-                                    lesson.getStudentBatch().getBatchName(),
-                                    lesson.getCourse().getName(),
-                                    lesson.getLessonType(),
-                                    lesson.getFaculty().getName()));
-                        } catch (IOException e) {
-                            logger.log(Level.SEVERE, "Error writing to CSV", e);
-                        }
-                    });
-
-            solution.getMinorLessonList().stream()
-                    .filter(lesson -> lesson.getTimeSlot() != null && lesson.getRoom() != null && lesson.getFaculty() != null)
-                    .sorted(Comparator.comparing((Lesson lesson) -> dayToIndex(lesson.getTimeSlot().getDay()))
-                            .thenComparing(lesson -> lesson.getId())
-                            .thenComparing(lesson -> lesson.getTimeSlot().getStartTime()))
-                    .forEach(lesson -> {
-                        try {
-                            writer.write(String.format("%s,%s-%s,%s,%s,%s,%s,%s\n",
-                                    lesson.getTimeSlot().getDay(),
-                                    lesson.getTimeSlot().getStartTime(),
-                                    lesson.getTimeSlot().getEndTime(),
-                                    lesson.getRoom().getRoomNumber(),
-                                    "ALL",
-                                    lesson.getCourse().getName(),
-                                    lesson.getLessonType(),
-                                    lesson.getFaculty().getName()));
-                        } catch (IOException e) {
-                            logger.log(Level.SEVERE, "Error writing to CSV", e);
-                        }
-                    });
-
+            writeSolutionCSV(solution, writer);
             logger.info("Timetable exported to " + fileName);
         } catch (IOException e) {
             logger.log(Level.SEVERE, "Error creating CSV file", e);
         }
     }
 
+    // Writes the timetable in the final_timetable.csv format, regular lessons by day, batch and time, then minors
+    public static void writeSolutionCSV(TimeTable solution, Writer writer) throws IOException {
+        writer.write("Day,Time,Room,Batch,Course,Type,Faculty\n");
+
+        solution.getLessonList().stream()
+                .filter(lesson -> lesson.getTimeSlot() != null && lesson.getRoom() != null && lesson.getFaculty() != null)
+                .sorted(Comparator.comparing((Lesson lesson) -> dayToIndex(lesson.getTimeSlot().getDay()))
+                        .thenComparing(lesson -> lesson.getStudentBatch().getBatchName())
+                        .thenComparing(lesson -> lesson.getTimeSlot().getStartTime()))
+                .forEach(lesson -> {
+                    try {
+                        writer.write(String.format("%s,%s-%s,%s,%s,%s,%s,%s\n",
+                                lesson.getTimeSlot().getDay(),
+                                lesson.getTimeSlot().getStartTime(),
+                                lesson.getTimeSlot().getEndTime(),
+                                lesson.getRoom().getRoomNumber(),
+                                lesson.getStudentBatch().getBatchName(),
+                                lesson.getCourse().getName(),
+                                lesson.getLessonType(),
+                                lesson.getFaculty().getName()));
+                    } catch (IOException e) {
+                        logger.log(Level.SEVERE, "Error writing to CSV", e);
+                    }
+                });
+
+        solution.getMinorLessonList().stream()
+                .filter(lesson -> lesson.getTimeSlot() != null && lesson.getRoom() != null && lesson.getFaculty() != null)
+                .sorted(Comparator.comparing((Lesson lesson) -> dayToIndex(lesson.getTimeSlot().getDay()))
+                        .thenComparing(lesson -> lesson.getId())
+                        .thenComparing(lesson -> lesson.getTimeSlot().getStartTime()))
+                .forEach(lesson -> {
+                    try {
+                        writer.write(String.format("%s,%s-%s,%s,%s,%s,%s,%s\n",
+                                lesson.getTimeSlot().getDay(),
+                                lesson.getTimeSlot().getStartTime(),
+                                lesson.getTimeSlot().getEndTime(),
+                                lesson.getRoom().getRoomNumber(),
+                                "ALL",
+                                lesson.getCourse().getName(),
+                                lesson.getLessonType(),
+                                lesson.getFaculty().getName()));
+                    } catch (IOException e) {
+                        logger.log(Level.SEVERE, "Error writing to CSV", e);
+                    }
+                });
+    }
+
     // Mapping weekdays to indices for sorting
     private static int dayToIndex(String day) {
         switch (day) {
@@ -38,4 +38,16 @@ public class Faculty extends User {
         return maxHoursPerDay;
     }
 
+    public void setMaxHoursPerDay(int maxHoursPerDay) {
+        this.maxHoursPerDay = maxHoursPerDay;
+    }
+
+    public boolean isAvailable() {
+        return isAvailable;
+    }
+
+    public void setAvailable(boolean available) {
+        isAvailable = available;
+    }
+
 }
@@ -1,7 +1,9 @@
 package com.timetable.domain;
 
 import org.optaplanner.core.api.domain.entity.PlanningEntity;
+import org.optaplanner.core.api.domain.entity.PlanningPin;
 import org.optaplanner.core.api.domain.lookup.PlanningId;
+import org.optaplanner.core.api.domain.valuerange.ValueRangeProvider;
 import org.optaplanner.core.api.domain.variable.PlanningVariable;
 
 import java.util.List;
@@ -12,7 +14,7 @@ import java.util.logging.Logger;
  * Represents a lesson, including its course, batch, faculty, room, and time slot.
  * This is a @PlanningEntity used by OptaPlanner to optimize timetable scheduling.
  */
-@PlanningEntity
+@PlanningEntity(difficultyWeightFactoryClass = LessonDifficultyWeightFactory.class)
 public class Lesson {
 
     private static final Logger logger = Logger.getLogger(Lesson.class.getName());
@@ -28,14 +30,21 @@ public class Lesson {
 
     private Room room; // Room for the lesson, currently not managed as a PlanningVariable
 
-    @PlanningVariable(valueRangeProviderRefs = "timeSlotRange")
+    @PlanningVariable(valueRangeProviderRefs = "lessonTimeSlotRange",
+            strengthWeightFactoryClass = TimeSlotStrengthWeightFactory.class)
     private TimeSlot timeSlot;
 
     private TimeSlot minorTimeSlot;
 
+    private List<TimeSlot> timeSlotRange; // Slots valid for this lesson's batch year and lesson type
+
 
     private List<Room> roomList; // List of potential rooms for the lesson
 
+    @PlanningPin
+    private boolean pinned; // Repair mode keeps lessons away from a disruption where they are
+    private TimeSlot originalTimeSlot; // Slot in the timetable being repaired, null outside repair mode
+
     // Constructors
     public Lesson() {}
 
@@ -54,6 +63,22 @@ public class Lesson {
         this.room = null; // Room will be assigned during planning
     }
 
+    // Copy constructor used when splitting a timetable into independently solved parts
+    public Lesson(Lesson original) {
+        this.id = original.id;
+        this.course = original.course;
+        this.studentBatch = original.studentBatch;
+        this.lessonType = original.lessonType;
+        this.faculty = original.faculty;
+        this.room = original.room;
+        this.timeSlot = original.timeSlot;
+        this.minorTimeSlot = original.minorTimeSlot;
+        this.timeSlotRange = original.timeSlotRange;
+        this.roomList = original.roomList;
+        this.pinned = original.pinned;
+        this.originalTimeSlot = original.originalTimeSlot;
+    }
+
     // Getters and Setters
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
@@ -83,8 +108,22 @@ public class Lesson {
     public TimeSlot getMinorTimeSlot() { return minorTimeSlot; }
     public void setMinorTimeSlot(TimeSlot timeSlot) { this.minorTimeSlot = minorTimeSlot; }
 
+    // Entity-scoped value range, so the solver never proposes a slot from another batch year or lesson type
+    @ValueRangeProvider(id = "lessonTimeSlotRange")
+    public List<TimeSlot> getTimeSlotRange() { return timeSlotRange; }
+    public void setTimeSlotRange(List<TimeSlot> timeSlotRange) { this.timeSlotRange = timeSlotRange; }
+
     public List<Room> getRoomList() { return roomList; }
 
+    public boolean isPinned() { return pinned; }
+    public void setPinned(boolean pinned) { this.pinned = pinned; }
+
+    public TimeSlot getOriginalTimeSlot() { return originalTimeSlot; }
+    public void setOriginalTimeSlot(TimeSlot originalTimeSlot) { this.originalTimeSlot = originalTimeSlot; }
+
+    // Replaces an assigned room, which setRoom leaves untouched; used when a room closes
+    public void reassignRoom(Room room) { this.room = room; }
+
     // Helper method to check if a time slot is suitable for a lab
     private boolean isLabTimeSlot(TimeSlot timeSlot) {
         return timeSlot.getTimeSlotIndex() == (int) (id % 5) + 1; // Example logic
@@ -0,0 +1,74 @@
+package com.timetable.domain;
+
+import org.optaplanner.core.impl.heuristic.selector.common.decorator.SelectionSorterWeightFactory;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Orders lessons for the construction heuristic, hardest to place first: labs before other lessons, then
+ * lessons with the fewest valid slots, then lessons whose faculty teaches the most lessons.
+ */
+public class LessonDifficultyWeightFactory implements SelectionSorterWeightFactory<TimeTable, Lesson> {
+
+    private TimeTable countedTimeTable;
+    private Map<Faculty, Integer> facultyLessonCounts;
+
+    @Override
+    public LessonDifficultyWeight createSorterWeight(TimeTable timeTable, Lesson lesson) {
+        Integer facultyLessonCount = lesson.getFaculty() != null
+                ? countFacultyLessons(timeTable).get(lesson.getFaculty()) : null;
+        int slotCount = lesson.getTimeSlotRange() != null ? lesson.getTimeSlotRange().size() : 0;
+        return new LessonDifficultyWeight(lesson, "LAB".equals(lesson.getLessonType()), slotCount,
+                facultyLessonCount != null ? facultyLessonCount : 0);
+    }
+
+    // Counted once per solution instead of once per lesson
+    private synchronized Map<Faculty, Integer> countFacultyLessons(TimeTable timeTable) {
+        if (countedTimeTable != timeTable) {
+            Map<Faculty, Integer> counts = new HashMap<>();
+            for (List<Lesson> lessons : Arrays.asList(timeTable.getLessonList(), timeTable.getMinorLessonList())) {
+                if (lessons == null) {
+                    continue;
+                }
+                for (Lesson other : lessons) {
+                    if (other.getFaculty() != null) {
+                        counts.merge(other.getFaculty(), 1, Integer::sum);
+                    }
+                }
+            }
+            facultyLessonCounts = counts;
+            countedTimeTable = timeTable;
+        }
+        return facultyLessonCounts;
+    }
+
+    // A greater weight is a harder lesson
+    public static class LessonDifficultyWeight implements Comparable<LessonDifficultyWeight> {
+        private static final Comparator<LessonDifficultyWeight> COMPARATOR =
+                Comparator.comparing((LessonDifficultyWeight weight) -> weight.lab)
+                        .thenComparing(weight -> weight.slotCount, Comparator.reverseOrder())
+                        .thenComparingInt(weight -> weight.facultyLessonCount)
+                        .thenComparing(weight -> weight.lesson.getId(), Comparator.reverseOrder());
+
+        private final Lesson lesson;
+        private final boolean lab;
+        private final int slotCount;
+        private final int facultyLessonCount;
+
+        public LessonDifficultyWeight(Lesson lesson, boolean lab, int slotCount, int facultyLessonCount) {
+            this.lesson = lesson;
+            this.lab = lab;
+            this.slotCount = slotCount;
+            this.facultyLessonCount = facultyLessonCount;
+        }
+
+        @Override
+        public int compareTo(LessonDifficultyWeight other) {
+            return COMPARATOR.compare(this, other);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.timetable.domain;
+
+import java.util.List;
+
+/**
+ * Dense matrix of precomputed relations between every ordered pair of slots in a TimeSlotCatalogue,
+ * indexed by {@link TimeSlot#getIndex()}. Built once per problem, so pairwise constraints read a
+ * relation with a single array access instead of comparing the two slots again on every move.
+ */
+public class SlotRelationTable {
+    public static final int SAME_DAY = 1;
+    public static final int OVERLAPS = 1 << 1;           // TimeSlot.overlaps
+    public static final int INTERWOVEN = 1 << 2;         // TimeSlot.isInterwovenWith
+    public static final int INSUFFICIENT_BREAK = 1 << 3; // TimeSlot.hasInsufficientBreakWith
+    public static final int FOLLOWED_BY = 1 << 4;        // TimeSlot.isFollowedBy
+    // Combined flags matching the clash definitions used by the faculty and batch conflict constraints
+    public static final int FACULTY_CLASH = 1 << 5;      // overlapping, interwoven or too short a break
+    public static final int BATCH_CLASH = 1 << 6;        // same day and overlapping or interwoven
+
+    private final int size;
+    private final byte[] flags;
+    private final int[] gapMinutes;
+
+    private SlotRelationTable(List<TimeSlot> timeSlots) {
+        this.size = timeSlots.size();
+        this.flags = new byte[size * size];
+        this.gapMinutes = new int[size * size];
+        for (TimeSlot first : timeSlots) {
+            for (TimeSlot second : timeSlots) {
+                int cell = first.getIndex() * size + second.getIndex();
+                flags[cell] = (byte) computeFlags(first, second);
+                gapMinutes[cell] = first.gapMinutesTo(second);
+            }
+        }
+    }
+
+    // Builds the table for every slot of the catalogue and attaches it to those slots
+    public static SlotRelationTable build(TimeSlotCatalogue timeSlotCatalogue) {
+        List<TimeSlot> timeSlots = timeSlotCatalogue.getTimeSlots();
+        SlotRelationTable relationTable = new SlotRelationTable(timeSlots);
+        for (TimeSlot timeSlot : timeSlots) {
+            timeSlot.setRelationTable(relationTable);
+        }
+        return relationTable;
+    }
+
+    // Relation flags computed directly from the slots, for slots that do not share a table
+    public static int computeFlags(TimeSlot first, TimeSlot second) {
+        boolean sameDay = first.isSameDay(second);
+        boolean overlaps = first.overlaps(second);
+        boolean interwoven = first.isInterwovenWith(second);
+        boolean insufficientBreak = first.hasInsufficientBreakWith(second);
+
+        int relation = 0;
+        if (sameDay) relation |= SAME_DAY;
+        if (overlaps) relation |= OVERLAPS;
+        if (interwoven) relation |= INTERWOVEN;
+        if (insufficientBreak) relation |= INSUFFICIENT_BREAK;
+        if (first.isFollowedBy(second)) relation |= FOLLOWED_BY;
+        if (overlaps || interwoven || insufficientBreak) relation |= FACULTY_CLASH;
+        if (sameDay && (overlaps || interwoven)) relation |= BATCH_CLASH;
+        return relation;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int flags(TimeSlot first, TimeSlot second) {
+        return flags[first.getIndex() * size + second.getIndex()];
+    }
+
+    public boolean has(TimeSlot first, TimeSlot second, int relation) {
+        return (flags[first.getIndex() * size + second.getIndex()] & relation) != 0;
+    }
+
+    // Same value as first.gapMinutesTo(second)
+    public int gapMinutes(TimeSlot first, TimeSlot second) {
+        return gapMinutes[first.getIndex() * size + second.getIndex()];
+    }
+
+    // Whether both slots can be looked up in this table
+    public boolean contains(TimeSlot first, TimeSlot second) {
+        return first.getRelationTable() == this && second.getRelationTable() == this;
+    }
+}
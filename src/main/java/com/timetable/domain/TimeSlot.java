@@ -1,15 +1,29 @@
 package com.timetable.domain;
 
-import java.time.Duration;
+import org.optaplanner.core.api.domain.lookup.PlanningId;
+
 import java.time.LocalTime;
 import java.util.Objects;
 
 public class TimeSlot {
+    public static final int MINUTES_PER_DAY = 24 * 60;
+    public static final int MIN_BREAK_MINUTES = 15; // A faculty needs at least this long between two lessons
+
+    @PlanningId // Move threads rebase moves by looking slots up through this id
     private Long id;
     private String day;
     private LocalTime startTime;
     private LocalTime endTime;
     private String slotType;
+    private int index = -1; // Position in the TimeSlotCatalogue, -1 for slots created outside one
+
+    // Primitive encoding of day and times, kept in step with the fields above so the
+    // constraint predicates never allocate Duration or LocalTime objects
+    private int dayIndex = -1;        // 0 for Monday through 4 for Friday
+    private int startMinuteOfWeek;
+    private int endMinuteOfWeek;
+
+    private SlotRelationTable relationTable; // Set once the owning catalogue's relation table is built
 
     public TimeSlot() {}
 
@@ -19,6 +33,7 @@ public class TimeSlot {
         this.startTime = startTime;
         this.endTime = endTime;
         this.slotType = slotType;
+        updateEncoding();
     }
 
     // Legacy constructor for backward compatibility
@@ -31,16 +46,94 @@ public class TimeSlot {
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
     public String getDay() { return day; }
-    public void setDay(String day) { this.day = day; }
+    public void setDay(String day) {
+        this.day = day;
+        updateEncoding();
+    }
     public LocalTime getStartTime() { return startTime; }
-    public void setStartTime(LocalTime startTime) { this.startTime = startTime; }
+    public void setStartTime(LocalTime startTime) {
+        this.startTime = startTime;
+        updateEncoding();
+    }
     public LocalTime getEndTime() { return endTime; }
-    public void setEndTime(LocalTime endTime) { this.endTime = endTime; }
+    public void setEndTime(LocalTime endTime) {
+        this.endTime = endTime;
+        updateEncoding();
+    }
 
     // New getter and setter for slot type
     public String getSlotType() { return slotType; }
     public void setSlotType(String slotType) { this.slotType = slotType; }
 
+    // Compact catalogue index, not to be confused with the day number from getTimeSlotIndex()
+    public int getIndex() { return index; }
+    public void setIndex(int index) { this.index = index; }
+
+    public SlotRelationTable getRelationTable() { return relationTable; }
+    public void setRelationTable(SlotRelationTable relationTable) { this.relationTable = relationTable; }
+
+    public int getDayIndex() { return dayIndex; }
+    public int getStartMinuteOfWeek() { return startMinuteOfWeek; }
+    public int getEndMinuteOfWeek() { return endMinuteOfWeek; }
+    public int getStartMinuteOfDay() { return startMinuteOfWeek - Math.max(dayIndex, 0) * MINUTES_PER_DAY; }
+    public int getEndMinuteOfDay() { return endMinuteOfWeek - Math.max(dayIndex, 0) * MINUTES_PER_DAY; }
+
+    // Recomputes the primitive encoding; slots with an unknown day or missing times keep dayIndex -1
+    private void updateEncoding() {
+        dayIndex = day != null ? dayToIndex(day) : -1;
+        int dayOffset = Math.max(dayIndex, 0) * MINUTES_PER_DAY;
+        startMinuteOfWeek = startTime != null ? dayOffset + startTime.getHour() * 60 + startTime.getMinute() : dayOffset;
+        endMinuteOfWeek = endTime != null ? dayOffset + endTime.getHour() * 60 + endTime.getMinute() : dayOffset;
+    }
+
+    private static int dayToIndex(String day) {
+        switch (day.toLowerCase()) {
+            case "monday": return 0;
+            case "tuesday": return 1;
+            case "wednesday": return 2;
+            case "thursday": return 3;
+            case "friday": return 4;
+            default: return -1;
+        }
+    }
+
+    // Pairwise relations, all on the primitive encoding. Slots on different days never overlap,
+    // and gaps between different days span the night in between.
+
+    public boolean isSameDay(TimeSlot other) {
+        return dayIndex == other.dayIndex;
+    }
+
+    // Overlap including slots that touch end-to-start
+    public boolean overlaps(TimeSlot other) {
+        return startMinuteOfWeek <= other.endMinuteOfWeek && other.startMinuteOfWeek <= endMinuteOfWeek;
+    }
+
+    // Strict partial overlap: one slot starts or ends strictly inside the other
+    public boolean isInterwovenWith(TimeSlot other) {
+        return isStrictlyInside(other.startMinuteOfWeek) || isStrictlyInside(other.endMinuteOfWeek)
+                || other.isStrictlyInside(startMinuteOfWeek) || other.isStrictlyInside(endMinuteOfWeek);
+    }
+
+    private boolean isStrictlyInside(int minuteOfWeek) {
+        return minuteOfWeek > startMinuteOfWeek && minuteOfWeek < endMinuteOfWeek;
+    }
+
+    // Minutes from the end of this slot to the start of the other; negative when the other starts earlier
+    public int gapMinutesTo(TimeSlot other) {
+        return other.startMinuteOfWeek - endMinuteOfWeek;
+    }
+
+    // True when the other slot starts no more than 5 minutes after this one ends
+    public boolean isFollowedBy(TimeSlot other) {
+        return gapMinutesTo(other) <= 5; // 5-minute buffer
+    }
+
+    // True when less than MIN_BREAK_MINUTES separate the end of this slot from the start of the other, either way round
+    public boolean hasInsufficientBreakWith(TimeSlot other) {
+        return Math.abs(gapMinutesTo(other)) < MIN_BREAK_MINUTES;
+    }
+
     // Overriding equals and hashCode to compare TimeSlots by id
     @Override
     public boolean equals(Object o) {
@@ -82,10 +175,6 @@ public class TimeSlot {
     }
 
     public int getDurationInMinutes() {
-        LocalTime startTime = this.startTime;
-        LocalTime endTime = this.endTime;
-        Duration duration = Duration.between(startTime, endTime);
-
-        return (int)duration.toMinutes() % 60;
+        return (endMinuteOfWeek - startMinuteOfWeek) % 60;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,61 @@
+package com.timetable.domain;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hands out one canonical TimeSlot per (day, start, end, type), so every batch that uses a slot shares the same
+ * instance. Each slot gets a globally unique id and a compact index into {@link #getTimeSlots()}.
+ */
+public class TimeSlotCatalogue {
+    private final List<TimeSlot> timeSlots = new ArrayList<>();
+    private final Map<String, TimeSlot> timeSlotsByKey = new HashMap<>();
+    private SlotRelationTable relationTable;
+
+    // Returns the canonical slot for these values, creating it on first use
+    public TimeSlot intern(String day, LocalTime startTime, LocalTime endTime, String slotType) {
+        return timeSlotsByKey.computeIfAbsent(key(day, startTime, endTime, slotType), key -> {
+            int index = timeSlots.size();
+            TimeSlot timeSlot = new TimeSlot((long) index + 1, day, startTime, endTime, slotType);
+            timeSlot.setIndex(index);
+            timeSlots.add(timeSlot);
+            return timeSlot;
+        });
+    }
+
+    // Returns the canonical slot for these values, or null if it was never interned
+    public TimeSlot find(String day, LocalTime startTime, LocalTime endTime, String slotType) {
+        return timeSlotsByKey.get(key(day, startTime, endTime, slotType));
+    }
+
+    public TimeSlot get(int index) {
+        return timeSlots.get(index);
+    }
+
+    public int size() {
+        return timeSlots.size();
+    }
+
+    // Precomputes pair relations for every slot interned so far; call again after interning more slots
+    public SlotRelationTable buildRelationTable() {
+        relationTable = SlotRelationTable.build(this);
+        return relationTable;
+    }
+
+    public SlotRelationTable getRelationTable() {
+        return relationTable;
+    }
+
+    // All slots in index order
+    public List<TimeSlot> getTimeSlots() {
+        return Collections.unmodifiableList(timeSlots);
+    }
+
+    private static String key(String day, LocalTime startTime, LocalTime endTime, String slotType) {
+        return day + '|' + startTime + '|' + endTime + '|' + slotType;
+    }
+}
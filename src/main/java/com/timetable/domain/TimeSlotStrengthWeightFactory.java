@@ -0,0 +1,48 @@
+package com.timetable.domain;
+
+import org.optaplanner.core.impl.heuristic.selector.common.decorator.SelectionSorterWeightFactory;
+
+import java.util.Comparator;
+
+/**
+ * Orders time slots for the weakest fit construction heuristics. A slot that clashes with many other slots
+ * for a batch is the strongest, since taking it rules out the most alternatives, so weakest fit tries the
+ * isolated slots first and earlier slots before later ones.
+ */
+public class TimeSlotStrengthWeightFactory implements SelectionSorterWeightFactory<TimeTable, TimeSlot> {
+
+    @Override
+    public TimeSlotStrengthWeight createSorterWeight(TimeTable timeTable, TimeSlot timeSlot) {
+        int clashCount = 0;
+        SlotRelationTable relationTable = timeSlot.getRelationTable();
+        if (relationTable != null && timeTable.getTimeSlotCatalogue() != null) {
+            for (TimeSlot other : timeTable.getTimeSlotCatalogue().getTimeSlots()) {
+                if (other != timeSlot && relationTable.has(timeSlot, other, SlotRelationTable.BATCH_CLASH)) {
+                    clashCount++;
+                }
+            }
+        }
+        return new TimeSlotStrengthWeight(timeSlot, clashCount);
+    }
+
+    // A greater weight is a stronger slot
+    public static class TimeSlotStrengthWeight implements Comparable<TimeSlotStrengthWeight> {
+        private static final Comparator<TimeSlotStrengthWeight> COMPARATOR =
+                Comparator.comparingInt((TimeSlotStrengthWeight weight) -> weight.clashCount)
+                        .thenComparingInt(weight -> weight.timeSlot.getStartMinuteOfWeek())
+                        .thenComparing(weight -> weight.timeSlot.getId());
+
+        private final TimeSlot timeSlot;
+        private final int clashCount;
+
+        public TimeSlotStrengthWeight(TimeSlot timeSlot, int clashCount) {
+            this.timeSlot = timeSlot;
+            this.clashCount = clashCount;
+        }
+
+        @Override
+        public int compareTo(TimeSlotStrengthWeight other) {
+            return COMPARATOR.compare(this, other);
+        }
+    }
+}
@@ -31,14 +31,15 @@ public class TimeTable {
     @ProblemFactCollectionProperty
     private List<Room> roomList;
 
-    @ValueRangeProvider(id = "timeSlotRange")
     @ProblemFactCollectionProperty
-    private List<TimeSlot> timeSlotList;
+    private List<TimeSlot> timeSlotList; // Lessons draw their slots from Lesson.getTimeSlotRange()
 
     @ValueRangeProvider(id = "minorTimeSlotRange")
     @ProblemFactCollectionProperty
     private List<TimeSlot> minorTimeSlotList;
 
+    private TimeSlotCatalogue timeSlotCatalogue; // Owner of every TimeSlot in timeSlotList and minorTimeSlotList
+
     @PlanningScore
     private HardSoftScore score;
 
@@ -82,6 +83,8 @@ public class TimeTable {
     public void setMinorTimeSlotList(List<TimeSlot> minorTimeSlotList) {
         this.minorTimeSlotList = minorTimeSlotList != null ? minorTimeSlotList : new ArrayList<>();
     }
+    public TimeSlotCatalogue getTimeSlotCatalogue() { return timeSlotCatalogue; }
+    public void setTimeSlotCatalogue(TimeSlotCatalogue timeSlotCatalogue) { this.timeSlotCatalogue = timeSlotCatalogue; }
     public HardSoftScore getScore() { return score; }
     public void setScore(HardSoftScore score) { this.score = score; }
 
@@ -3,35 +3,45 @@ package com.timetable.score;
 import com.timetable.domain.*;
 import org.optaplanner.core.api.score.buildin.hardsoft.HardSoftScore;
 import org.optaplanner.core.api.score.stream.*;
+import org.optaplanner.core.api.score.stream.bi.BiConstraintStream;
 
-import java.time.Duration;
 import java.time.LocalTime;
-import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
 
 public class TimeTableConstraintProvider implements ConstraintProvider {
     // Constants
-    private static final int MIN_CLASSES_PER_BATCH = 20;
-    private static final int MAX_CLASSES_PER_BATCH = 25;
-    private static final int TARGET_FACULTY_LESSONS = 15;
+    static final int MIN_CLASSES_PER_BATCH = 20;
+    static final int MAX_CLASSES_PER_BATCH = 25;
+    static final int TARGET_FACULTY_LESSONS = 15;
     private static final LocalTime LUNCH_START = LocalTime.of(13, 15);
     private static final LocalTime LUNCH_END = LocalTime.of(14, 30);
     private static final LocalTime PREFERRED_START_TIME = LocalTime.of(9, 0);
-    private static final int TARGET_DAILY_LESSONS_PER_BATCH = 4;
-    private static final int ALLOWED_VARIANCE = 1;
-    private static final int MAX_GAP_MINUTES = 60;
+    static final int TARGET_DAILY_LESSONS_PER_BATCH = 4;
+    static final int ALLOWED_VARIANCE = 1;
+    static final int MAX_GAP_MINUTES = 60;
+    static final int CHANGED_LESSON_PENALTY = 60; // Repair mode: a moved lesson weighs like an hour off the preferred start
 
     private static final LocalTime LUNCH_START_JUNIOR = LocalTime.of(13, 14);
     private static final LocalTime LUNCH_END_JUNIOR = LocalTime.of(14, 31);
     private static final LocalTime LUNCH_START_SENIOR = LocalTime.of(12, 14);
     private static final LocalTime LUNCH_END_SENIOR = LocalTime.of(13, 16);
 
+    // Minute-of-day equivalents used by the allocation-free predicates
+    static final int PREFERRED_START_MINUTE = minuteOfDay(PREFERRED_START_TIME);
+    private static final int LUNCH_START_JUNIOR_MINUTE = minuteOfDay(LUNCH_START_JUNIOR);
+    private static final int LUNCH_END_JUNIOR_MINUTE = minuteOfDay(LUNCH_END_JUNIOR);
+    private static final int LUNCH_START_SENIOR_MINUTE = minuteOfDay(LUNCH_START_SENIOR);
+    private static final int LUNCH_END_SENIOR_MINUTE = minuteOfDay(LUNCH_END_SENIOR);
+
     @Override
     public Constraint[] defineConstraints(ConstraintFactory factory) {
         return new Constraint[] {
-                // Essential Hard Constraints
+                // Essential Hard Constraints; each batch and faculty clash is matched by one indexed join
                 roomConflict(factory),
-                teacherConflict(factory),
-                studentGroupConflict(factory),
+                facultyTimeConflictConstraint(factory),
+                facultyMultiBatchConstraint(factory),
+                studentBatchConflict(factory),
                 roomCapacity(factory),
                 teacherQualification(factory),
 
@@ -39,7 +49,6 @@ public class TimeTableConstraintProvider implements ConstraintProvider {
                 weeklyLabScheduling(factory),
                 labRoomAssignment(factory),
                 onlyOneLabPerBatchPerDay(factory),
-                onlyLabCoursesInLabRooms(factory),
                 lectureInRegularRooms(factory),
                 predefinedRoomAssignment(factory),
 
@@ -72,10 +81,7 @@ public class TimeTableConstraintProvider implements ConstraintProvider {
 
                 lectureDurationConstraint(factory),
                 labDurationConstraint(factory),
-                facultyTimeConflictConstraint(factory),
-                facultyMultiBatchConstraint(factory),
 //                consecutiveClassConstraint(factory),
-                studentBatchConflict(factory),
                 batchTimeSlotCompatibility(factory),
 //                minorTimeSlotCompatibility(factory),
 //                minorCourseDaySpread(factory),
@@ -84,7 +90,8 @@ public class TimeTableConstraintProvider implements ConstraintProvider {
                 labRoomConstraint(factory),
                 lectureRoomConstraint(factory),
 
-                batchTimeConflict(factory)
+                // Repair mode
+                minimizeTimetableChanges(factory)
 
         };
     }
@@ -98,36 +105,62 @@ public class TimeTableConstraintProvider implements ConstraintProvider {
                 .asConstraint("Room conflict");
     }
 
-    private Constraint teacherConflict(ConstraintFactory factory) {
-        return factory.forEachUniquePair(Lesson.class,
-                        Joiners.equal(Lesson::getFaculty),
-                        Joiners.equal(Lesson::getTimeSlot))
-                .penalize(HardSoftScore.ONE_HARD.multiply(10))  // Increased weight
-                .asConstraint("Teacher conflict");
+    // Covers lessons in the same slot as well as overlapping, interwoven and back-to-back slots of a faculty
+    private Constraint facultyTimeConflictConstraint(ConstraintFactory factory) {
+        return facultyClashCandidates(factory)
+                .filter((lesson1, lesson2) -> lesson1.getFaculty() != null
+                        && isFacultyClash(lesson1.getTimeSlot(), lesson2.getTimeSlot()))
+                .penalize(HardSoftScore.ONE_HARD.multiply(10))
+                .asConstraint("Faculty Time Conflict");
     }
 
+    // The overlapping joiner widens each slot by the minimum break, so only near pairs reach the filter.
+    // The joins of the pair constraints are protected so the benchmarks can count the tuples they pass on
+    protected BiConstraintStream<Lesson, Lesson> facultyClashCandidates(ConstraintFactory factory) {
+        return factory.forEachUniquePair(Lesson.class,
+                Joiners.equal(Lesson::getFaculty),
+                Joiners.equal(lesson -> lesson.getTimeSlot().getDayIndex()),
+                Joiners.overlapping(lesson -> lesson.getTimeSlot().getStartMinuteOfWeek(),
+                        lesson -> lesson.getTimeSlot().getEndMinuteOfWeek() + TimeSlot.MIN_BREAK_MINUTES));
+    }
 
-    private Constraint studentGroupConflict(ConstraintFactory factory) {
+    // Despite its name, matches any two batches of a faculty on the same day, whether or not their slots clash.
+    // Faculty Time Conflict covers the clashes; this one spreads a faculty's batches over the week
+    private Constraint facultyMultiBatchConstraint(ConstraintFactory factory) {
         return factory.forEachUniquePair(Lesson.class,
-                        Joiners.equal(Lesson::getStudentBatch),
-                        Joiners.equal(Lesson::getTimeSlot))
-                .penalize(HardSoftScore.ONE_HARD.multiply(10))  // Increased weight
-                .asConstraint("Student group conflict");
+                        Joiners.equal(Lesson::getFaculty),
+                        Joiners.equal(lesson -> lesson.getTimeSlot().getDayIndex()))
+                .filter((lesson1, lesson2) -> lesson1.getStudentBatch() != null
+                        && lesson2.getStudentBatch() != null
+                        && lesson1.getFaculty() != null
+                        && !lesson1.getStudentBatch().equals(lesson2.getStudentBatch()))
+                .penalize(HardSoftScore.ONE_HARD.multiply(10))
+                .asConstraint("Faculty Teaching Multiple Batches Simultaneously");
     }
 
-    private Constraint batchTimeConflict(ConstraintFactory constraintFactory) {
-        return constraintFactory
-                .forEachIncludingNullVars(Lesson.class)
-                .filter(lesson -> lesson.getTimeSlot() != null && lesson.getTimeSlot().getDay() != null) // Ensure non-null values
-                .join(Lesson.class,
-                        Joiners.equal(l -> l.getTimeSlot().getDay()), // Safe after filter
-                        Joiners.equal(Lesson::getTimeSlot),
-                        Joiners.equal(Lesson::getStudentBatch),
-                        Joiners.filtering((lesson1, lesson2) -> lesson1 != lesson2)) // Avoid self-join
+    // Covers lessons in the same slot as well as overlapping and interwoven slots of a batch
+    private Constraint studentBatchConflict(ConstraintFactory factory) {
+        return batchClashPairs(factory)
                 .penalize(HardSoftScore.ONE_HARD.multiply(10))
-                .asConstraint("Batch Time Conflict");
+                .asConstraint("Student batch time conflict");
     }
 
+    // TimeSlot.overlaps counts slots that touch end-to-start, the joiner does not, hence the extra minute
+    protected BiConstraintStream<Lesson, Lesson> batchClashPairs(ConstraintFactory factory) {
+        return factory.forEachUniquePair(Lesson.class,
+                Joiners.equal(Lesson::getStudentBatch),
+                Joiners.equal(lesson -> lesson.getTimeSlot().getDayIndex()),
+                Joiners.overlapping(lesson -> lesson.getTimeSlot().getStartMinuteOfWeek(),
+                        lesson -> lesson.getTimeSlot().getEndMinuteOfWeek() + 1));
+    }
+
+    // Only lessons with an original slot count, so outside repair mode this never matches
+    private Constraint minimizeTimetableChanges(ConstraintFactory factory) {
+        return factory.forEach(Lesson.class)
+                .filter(lesson -> lesson.getOriginalTimeSlot() != null && lesson.getTimeSlot() != lesson.getOriginalTimeSlot())
+                .penalize(HardSoftScore.ONE_SOFT.multiply(CHANGED_LESSON_PENALTY))
+                .asConstraint("Minimize changes to the original timetable");
+    }
 
     private Constraint roomCapacity(ConstraintFactory factory) {
         return factory.forEach(Lesson.class)
@@ -186,14 +219,6 @@ public class TimeTableConstraintProvider implements ConstraintProvider {
                 .asConstraint("Only one lab per batch per day");
     }
 
-    private Constraint onlyLabCoursesInLabRooms(ConstraintFactory factory) {
-        return factory.forEach(Lesson.class)
-                .filter(lesson -> !lesson.getCourse().isLabCourse())
-                .filter(lesson -> isLabRoom(lesson.getRoom()))
-                .penalize(HardSoftScore.ONE_HARD.multiply(10))
-                .asConstraint("Only lab courses in lab rooms");
-    }
-
     private Constraint lectureInRegularRooms(ConstraintFactory factory) {
         return factory.forEach(Lesson.class)
                 .filter(lesson -> !lesson.getCourse().isLabCourse())
@@ -209,7 +234,8 @@ public class TimeTableConstraintProvider implements ConstraintProvider {
                 .asConstraint("Predefined room assignment");
     }
 
-    private boolean isRoomAllowedForBatch(Room room, StudentBatch batch) {
+    // The rule helpers below are package-private so TimeTableIncrementalScoreCalculator applies the same rules
+    static boolean isRoomAllowedForBatch(Room room, StudentBatch batch) {
         if (room == null || batch == null) return false;
 
         if (room.isLectureRoom()) {
@@ -229,23 +255,23 @@ public class TimeTableConstraintProvider implements ConstraintProvider {
                 .asConstraint("No classes during lunch hour per year group");
     }
 
-    private boolean isLunchHourForYear(Lesson lesson) {
+    static boolean isLunchHourForYear(Lesson lesson) {
         if (lesson.getStudentBatch() == null) return false;
 
         int year = lesson.getStudentBatch().getYear();
-        LocalTime startTime = lesson.getTimeSlot().getStartTime();
+        int startMinute = lesson.getTimeSlot().getStartMinuteOfDay();
 
         // Use cached time values for comparison
         return switch (year) {
-            case 2024, 2023 -> startTime.isAfter(LUNCH_START_JUNIOR) &&
-                    startTime.isBefore(LUNCH_END_JUNIOR);
-            case 2022, 2021 -> startTime.isAfter(LUNCH_START_SENIOR) &&
-                    startTime.isBefore(LUNCH_END_SENIOR);
+            case 2024, 2023 -> startMinute > LUNCH_START_JUNIOR_MINUTE &&
+                    startMinute < LUNCH_END_JUNIOR_MINUTE;
+            case 2022, 2021 -> startMinute > LUNCH_START_SENIOR_MINUTE &&
+                    startMinute < LUNCH_END_SENIOR_MINUTE;
             default -> false;
         };
     }
 
-    private Integer  extractYearFromBatch(StudentBatch batch) {
+    static Integer extractYearFromBatch(StudentBatch batch) {
         if (batch == null) {
             return null;
         }
@@ -261,6 +287,9 @@ public class TimeTableConstraintProvider implements ConstraintProvider {
                 .filter((batch, day, course, count) -> count > 1)
                 .penalize(HardSoftScore.ONE_HARD.multiply(10),
                         (batch, day, course, count) -> count - 1)
+                .justifyWith((batch, day, course, count, score) ->
+                        DefaultConstraintJustification.of(score, nonNullFacts(batch, day, course, count)))
+                .indictWith((batch, day, course, count) -> nonNullFacts(batch, day, course, count))
                 .asConstraint("Single course per day for batch");
     }
 
@@ -272,7 +301,7 @@ public class TimeTableConstraintProvider implements ConstraintProvider {
                         HardSoftScore.ONE_HARD.multiply(10));
     }
 
-    private boolean isLabInCorrectTimeSlot(Lesson lesson) {
+    static boolean isLabInCorrectTimeSlot(Lesson lesson) {
         TimeSlot timeSlot = lesson.getTimeSlot();
         if (timeSlot == null) return false;
 
@@ -323,6 +352,9 @@ public class TimeTableConstraintProvider implements ConstraintProvider {
                         HardSoftScore.ONE_HARD.multiply(10), // Hard constraint
                         (teacher, batch, day, classCount) -> classCount - 2 // Penalize for every excess class
                 )
+                .justifyWith((teacher, batch, day, classCount, score) ->
+                        DefaultConstraintJustification.of(score, nonNullFacts(teacher, batch, day, classCount)))
+                .indictWith((teacher, batch, day, classCount) -> nonNullFacts(teacher, batch, day, classCount))
                 .asConstraint("Max two classes per day for a teacher per batch");
     }
 
@@ -334,6 +366,8 @@ public class TimeTableConstraintProvider implements ConstraintProvider {
                 .filter((batch, count) -> count < MIN_CLASSES_PER_BATCH || count > MAX_CLASSES_PER_BATCH)
                 .penalize(HardSoftScore.ONE_SOFT.multiply(10),
                         (batch, count) -> Math.abs(count - ((MIN_CLASSES_PER_BATCH + MAX_CLASSES_PER_BATCH) / 2)))
+                .justifyWith((batch, count, score) -> DefaultConstraintJustification.of(score, nonNullFacts(batch, count)))
+                .indictWith((batch, count) -> nonNullFacts(batch, count))
                 .asConstraint("Balance batch load");
     }
 
@@ -383,7 +417,7 @@ public class TimeTableConstraintProvider implements ConstraintProvider {
 //    private Constraint consecutiveLectures(ConstraintFactory factory) {
 //        return factory.forEachUniquePair(Lesson.class,
 //                        Joiners.equal(Lesson::getStudentBatch),
-//                        Joiners.equal(lesson -> lesson.getTimeSlot().getDay()))
+//                        Joiners.equal(lesson -> lesson.getTimeSlot().getDayIndex()))
 //                .filter((lesson1, lesson2) -> isConsecutive(lesson1, lesson2))
 //                .reward(HardSoftScore.ONE_SOFT)
 //                .asConstraint("Consecutive lectures");
@@ -392,7 +426,7 @@ public class TimeTableConstraintProvider implements ConstraintProvider {
     private Constraint roomStability(ConstraintFactory factory) {
         return factory.forEachUniquePair(Lesson.class,
                         Joiners.equal(Lesson::getStudentBatch),
-                        Joiners.equal(lesson -> lesson.getTimeSlot().getDay()))
+                        Joiners.equal(lesson -> lesson.getTimeSlot().getDayIndex()))
                 .filter((lesson1, lesson2) -> isConsecutive(lesson1, lesson2))
                 .filter((lesson1, lesson2) -> lesson1.getRoom() != lesson2.getRoom())
                 .penalize(HardSoftScore.ONE_SOFT)
@@ -402,11 +436,9 @@ public class TimeTableConstraintProvider implements ConstraintProvider {
     private Constraint minimizeRoomChanges(ConstraintFactory factory) {
         return factory.forEachUniquePair(Lesson.class,
                         Joiners.equal(Lesson::getStudentBatch),
-                        Joiners.equal(lesson -> lesson.getTimeSlot().getDay()))
+                        Joiners.equal(lesson -> lesson.getTimeSlot().getDayIndex()))
                 .filter((lesson1, lesson2) ->
-                        Math.abs(ChronoUnit.MINUTES.between(
-                                lesson1.getTimeSlot().getEndTime(),
-                                lesson2.getTimeSlot().getStartTime())) <= MAX_GAP_MINUTES)
+                        Math.abs(calculateTimeGap(lesson1, lesson2)) <= MAX_GAP_MINUTES)
                 .filter((lesson1, lesson2) -> lesson1.getRoom() != lesson2.getRoom())
                 .penalize(HardSoftScore.ONE_SOFT)
                 .asConstraint("Minimize room changes");
@@ -415,7 +447,7 @@ public class TimeTableConstraintProvider implements ConstraintProvider {
     private Constraint preferContiguousLessons(ConstraintFactory factory) {
         return factory.forEachUniquePair(Lesson.class,
                         Joiners.equal(Lesson::getStudentBatch),
-                        Joiners.equal(lesson -> lesson.getTimeSlot().getDay()))
+                        Joiners.equal(lesson -> lesson.getTimeSlot().getDayIndex()))
                 .filter((lesson1, lesson2) -> isConsecutive(lesson1, lesson2))
                 .reward(HardSoftScore.ONE_SOFT)
                 .asConstraint("Prefer contiguous lessons");
@@ -423,11 +455,9 @@ public class TimeTableConstraintProvider implements ConstraintProvider {
 
     private Constraint preferredStartTime(ConstraintFactory factory) {
         return factory.forEach(Lesson.class)
-                .filter(lesson -> !lesson.getTimeSlot().getStartTime().equals(PREFERRED_START_TIME))
+                .filter(lesson -> lesson.getTimeSlot().getStartMinuteOfDay() != PREFERRED_START_MINUTE)
                 .penalize(HardSoftScore.ONE_SOFT,
-                        lesson -> (int) Math.abs(ChronoUnit.MINUTES.between(
-                                PREFERRED_START_TIME,
-                                lesson.getTimeSlot().getStartTime())))
+                        lesson -> Math.abs(lesson.getTimeSlot().getStartMinuteOfDay() - PREFERRED_START_MINUTE))
                 .asConstraint("Preferred start time");
     }
 
@@ -441,22 +471,21 @@ public class TimeTableConstraintProvider implements ConstraintProvider {
                 .penalize(HardSoftScore.ONE_SOFT,
                         (batch, day, count) ->
                                 Math.abs(count - TARGET_DAILY_LESSONS_PER_BATCH))
+                .justifyWith((batch, day, count, score) ->
+                        DefaultConstraintJustification.of(score, nonNullFacts(batch, day, count)))
+                .indictWith((batch, day, count) -> nonNullFacts(batch, day, count))
                 .asConstraint("Balance daily batch load");
     }
 
     private Constraint contiguousLessons(ConstraintFactory factory) {
         return factory.forEachUniquePair(Lesson.class,
                         Joiners.equal(Lesson::getStudentBatch),
-                        Joiners.equal(lesson -> lesson.getTimeSlot().getDay()))
+                        Joiners.equal(lesson -> lesson.getTimeSlot().getDayIndex()))
                 .filter((lesson1, lesson2) -> !isConsecutive(lesson1, lesson2))
                 .filter((lesson1, lesson2) ->
-                        Math.abs(ChronoUnit.MINUTES.between(
-                                lesson1.getTimeSlot().getEndTime(),
-                                lesson2.getTimeSlot().getStartTime())) <= MAX_GAP_MINUTES)
+                        Math.abs(calculateTimeGap(lesson1, lesson2)) <= MAX_GAP_MINUTES)
                 .penalize(HardSoftScore.ONE_SOFT,
-                        (lesson1, lesson2) -> (int) Math.abs(ChronoUnit.MINUTES.between(
-                                lesson1.getTimeSlot().getEndTime(),
-                                lesson2.getTimeSlot().getStartTime())))
+                        (lesson1, lesson2) -> Math.abs(calculateTimeGap(lesson1, lesson2)))
                 .asConstraint("Contiguous lessons");
     }
 
@@ -464,29 +493,33 @@ public class TimeTableConstraintProvider implements ConstraintProvider {
     private Constraint minimizeGapsInSchedule(ConstraintFactory factory) {
         return factory.forEachUniquePair(Lesson.class,
                         Joiners.equal(Lesson::getStudentBatch),
-                        Joiners.equal(lesson -> lesson.getTimeSlot().getDay()))
-                .filter((lesson1, lesson2) ->
-                        ChronoUnit.MINUTES.between(
-                                lesson1.getTimeSlot().getEndTime(),
-                                lesson2.getTimeSlot().getStartTime()) > MAX_GAP_MINUTES)
+                        Joiners.equal(lesson -> lesson.getTimeSlot().getDayIndex()))
+                .filter((lesson1, lesson2) -> hasTimeGap(lesson1, lesson2))
                 .penalize(HardSoftScore.ONE_SOFT,
-                        (lesson1, lesson2) -> (int) ChronoUnit.MINUTES.between(
-                                lesson1.getTimeSlot().getEndTime(),
-                                lesson2.getTimeSlot().getStartTime()))
+                        (lesson1, lesson2) -> calculateTimeGap(lesson1, lesson2))
                 .asConstraint("Minimize gaps in schedule");
     }
 
     // Utility methods
-    private boolean isLabRoom(Room room) {
+    // Groups keyed by batch include the minor lessons, which have none; the default justification and
+    // indictments reject null facts, so constraint matches of such groups leave the null out
+    private static List<Object> nonNullFacts(Object... facts) {
+        List<Object> nonNull = new ArrayList<>(facts.length);
+        for (Object fact : facts) {
+            if (fact != null) {
+                nonNull.add(fact);
+            }
+        }
+        return nonNull;
+    }
+
+    static boolean isLabRoom(Room room) {
         return room.getType() == RoomType.COMPUTER_LAB ||
                 room.getType() == RoomType.HARDWARE_LAB;
     }
 
     private boolean isConsecutive(Lesson lesson1, Lesson lesson2) {
-        LocalTime endTime1 = lesson1.getTimeSlot().getEndTime();
-        LocalTime startTime2 = lesson2.getTimeSlot().getStartTime();
-        return endTime1.equals(startTime2) ||
-                ChronoUnit.MINUTES.between(endTime1, startTime2) <= 5; // 5-minute buffer
+        return hasRelation(lesson1.getTimeSlot(), lesson2.getTimeSlot(), SlotRelationTable.FOLLOWED_BY);
     }
 
     private Constraint minorValidRoom(ConstraintFactory constraintFactory) {
@@ -506,13 +539,19 @@ public class TimeTableConstraintProvider implements ConstraintProvider {
     }
 
     private Constraint noRoomConflictForMinors(ConstraintFactory constraintFactory) {
-        return constraintFactory.from(Lesson.class)
+        return minorRoomClashPairs(constraintFactory)
+                .penalize(HardSoftScore.ONE_HARD.multiply(10))
+                .asConstraint("No room conflicts for minors");
+    }
+
+    // Every other lesson in the room slot of a minor lesson, the minor lesson itself excluded
+    protected BiConstraintStream<Lesson, Lesson> minorRoomClashPairs(ConstraintFactory constraintFactory) {
+        return constraintFactory.forEach(Lesson.class)
                 .filter(lesson -> lesson.getCourse().getCourseType().equals("minor"))
                 .join(Lesson.class,
                         Joiners.equal(Lesson::getRoom),
-                        Joiners.equal(Lesson::getTimeSlot))
-                .penalize(HardSoftScore.ONE_HARD.multiply(10))
-                .asConstraint("No room conflicts for minors");
+                        Joiners.equal(Lesson::getTimeSlot),
+                        Joiners.filtering((minorLesson, other) -> minorLesson != other));
     }
 
     private Constraint lectureDurationConstraint(ConstraintFactory factory) {
@@ -551,67 +590,6 @@ public class TimeTableConstraintProvider implements ConstraintProvider {
                 .asConstraint("Sessions under 2 hours must be LECTURE type in lecture rooms");
     }
 
-    private Constraint facultyTimeConflictConstraint(ConstraintFactory factory) {
-        return factory.forEachUniquePair(Lesson.class,
-                        Joiners.equal(Lesson::getFaculty),
-                        Joiners.equal(l -> l.getTimeSlot() != null ? l.getTimeSlot().getDay() : null))
-                .filter((lesson1, lesson2) -> {
-                    // Comprehensive null checks
-                    if (lesson1 == null || lesson2 == null ||
-                            lesson1.getFaculty() == null || lesson2.getFaculty() == null ||
-                            lesson1.getTimeSlot() == null || lesson2.getTimeSlot() == null) {
-                        return false;
-                    }
-
-                    return isTimeSlotOverlapping(lesson1.getTimeSlot(), lesson2.getTimeSlot()) ||
-                            isInterwokenTimeSlot(lesson1.getTimeSlot(), lesson2.getTimeSlot()) ||
-                            isInsufficientBreakBetweenClasses(lesson1.getTimeSlot(), lesson2.getTimeSlot());
-                })
-                .penalize(HardSoftScore.ONE_HARD.multiply(10))
-                .asConstraint("Faculty Time Conflict");
-    }
-
-    private Constraint batchTimeConflictConstraint(ConstraintFactory factory) {
-        return factory.forEachUniquePair(Lesson.class,
-                        Joiners.equal(Lesson::getFaculty),
-                        Joiners.equal(l -> l.getTimeSlot() != null ? l.getTimeSlot().getDay() : null))
-                .filter((lesson1, lesson2) -> {
-                    // Comprehensive null checks
-                    if (lesson1 == null || lesson2 == null ||
-                            lesson1.getFaculty() == null || lesson2.getFaculty() == null ||
-                            lesson1.getTimeSlot() == null || lesson2.getTimeSlot() == null) {
-                        return false;
-                    }
-
-                    return isTimeSlotOverlapping(lesson1.getTimeSlot(), lesson2.getTimeSlot()) ||
-                            isInterwokenTimeSlot(lesson1.getTimeSlot(), lesson2.getTimeSlot()) ||
-                            isInsufficientBreakBetweenClasses(lesson1.getTimeSlot(), lesson2.getTimeSlot());
-                })
-                .penalize(HardSoftScore.ONE_HARD.multiply(10))
-                .asConstraint("Faculty Time Conflict");
-    }
-
-    private Constraint facultyMultiBatchConstraint(ConstraintFactory factory) {
-        return factory.forEachUniquePair(Lesson.class,
-                        Joiners.equal(Lesson::getFaculty),
-                        Joiners.equal(l -> l.getTimeSlot() != null ? l.getTimeSlot().getDay() : null))
-                .filter((lesson1, lesson2) -> {
-                    // Consolidated null and conflict checks
-                    return lesson1.getStudentBatch() != null &&
-                            lesson2.getStudentBatch() != null &&
-                            lesson1.getFaculty() != null &&
-                            lesson2.getFaculty() != null &&
-                            lesson1.getTimeSlot() != null &&
-                            lesson2.getTimeSlot() != null &&
-                            !lesson1.equals(lesson2) &&
-                            !lesson1.getStudentBatch().equals(lesson2.getStudentBatch());
-                })
-                .penalize(HardSoftScore.ONE_HARD.multiply(10))
-                .asConstraint("Faculty Teaching Multiple Batches Simultaneously");
-    }
-
-
-
 //    private Constraint consecutiveClassConstraint(ConstraintFactory factory) {
 //        return factory.forEachUniquePair(Lesson.class,
 //                        Joiners.equal(l -> l.getCourse()),
@@ -649,49 +627,18 @@ public class TimeTableConstraintProvider implements ConstraintProvider {
 
 
 
-    // Helper Methods
-    private boolean isTimeSlotOverlapping(TimeSlot slot1, TimeSlot slot2) {
-        if (slot1 == null || slot2 == null) return false;
-        return !(slot1.getEndTime().isBefore(slot2.getStartTime()) ||
-                slot1.getStartTime().isAfter(slot2.getEndTime()));
-    }
-
-    private boolean isInterwokenTimeSlot(TimeSlot slot1, TimeSlot slot2) {
-        LocalTime start1 = slot1.getStartTime();
-        LocalTime end1 = slot1.getEndTime();
-        LocalTime start2 = slot2.getStartTime();
-        LocalTime end2 = slot2.getEndTime();
-
-        return (start2.isAfter(start1) && start2.isBefore(end1)) ||
-                (end2.isAfter(start1) && end2.isBefore(end1)) ||
-                (start1.isAfter(start2) && start1.isBefore(end2)) ||
-                (end1.isAfter(start2) && end1.isBefore(end2));
-    }
-
-    private boolean isInsufficientBreakBetweenClasses(TimeSlot slot1, TimeSlot slot2) {
-        Duration timeBetweenClasses = Duration.between(
-                slot1.getEndTime(),
-                slot2.getStartTime()
-        );
-        return Math.abs(timeBetweenClasses.toMinutes()) < 15;
+    // Helper Methods, all reading the slot-pair relations from the SlotRelationTable
+    private boolean isFacultyClash(TimeSlot slot1, TimeSlot slot2) {
+        return hasRelation(slot1, slot2, SlotRelationTable.FACULTY_CLASH);
     }
 
-    private Constraint studentBatchConflict(ConstraintFactory factory) {
-        return factory.forEachUniquePair(Lesson.class,
-                        Joiners.equal(Lesson::getStudentBatch))
-                .filter((lesson1, lesson2) -> {
-                    // Null safety and day check
-                    TimeSlot slot1 = lesson1.getTimeSlot();
-                    TimeSlot slot2 = lesson2.getTimeSlot();
-
-                    return slot1 != null &&
-                            slot2 != null &&
-                            slot1.getDay().equals(slot2.getDay()) &&
-                            (isTimeSlotOverlapping(slot1, slot2) ||
-                                    isInterwokenTimeSlot(slot1, slot2));
-                })
-                .penalize(HardSoftScore.ONE_HARD.multiply(10))
-                .asConstraint("Student batch time conflict");
+    // Looks the pair up in the shared SlotRelationTable, computing it only for slots outside a catalogue
+    protected static boolean hasRelation(TimeSlot slot1, TimeSlot slot2, int relation) {
+        SlotRelationTable relationTable = slot1.getRelationTable();
+        if (relationTable != null && relationTable.contains(slot1, slot2)) {
+            return relationTable.has(slot1, slot2, relation);
+        }
+        return (SlotRelationTable.computeFlags(slot1, slot2) & relation) != 0;
     }
 
     // Constraint to ensure minor courses are only in minor time slots
@@ -710,15 +657,13 @@ public class TimeTableConstraintProvider implements ConstraintProvider {
     // Constraint to spread minor courses across different days
     private Constraint minorCourseDaySpread(ConstraintFactory constraintFactory) {
         return constraintFactory
-                .forEachUniquePair(Lesson.class)
-                .filter((lesson1, lesson2) ->
-                        "MINOR".equals(lesson1.getLessonType()) &&
-                                "MINOR".equals(lesson2.getLessonType()) &&
-                                lesson1.getCourse().equals(lesson2.getCourse()) &&
-                                lesson1.getTimeSlot() != null &&
-                                lesson2.getTimeSlot() != null &&
-                                lesson1.getTimeSlot().getDay().equals(lesson2.getTimeSlot().getDay())
-                )
+                .forEach(Lesson.class)
+                .filter(lesson -> "MINOR".equals(lesson.getLessonType()))
+                .join(constraintFactory.forEach(Lesson.class)
+                                .filter(lesson -> "MINOR".equals(lesson.getLessonType())),
+                        Joiners.equal(Lesson::getCourse),
+                        Joiners.equal(lesson -> lesson.getTimeSlot().getDayIndex()),
+                        Joiners.lessThan(Lesson::getId))
                 .penalize(HardSoftScore.ONE_HARD)
                 .asConstraint("MinorCourseDaySpread");
     }
@@ -769,7 +714,7 @@ public class TimeTableConstraintProvider implements ConstraintProvider {
     }
 
     // Original time slot validation for regular batches
-    private boolean isTimeSlotValidForBatch(StudentBatch batch, TimeSlot slot) {
+    static boolean isTimeSlotValidForBatch(StudentBatch batch, TimeSlot slot) {
         if (slot.getSlotType().equals("MINOR")) {
             return false;  // Regular batches should not get minor slots
         }
@@ -789,7 +734,7 @@ public class TimeTableConstraintProvider implements ConstraintProvider {
     }
 
     // Existing time slot validation methods remain the same
-    private boolean isValidTimeSlotForYear4(LocalTime startTime, LocalTime endTime, String slotType) {
+    static boolean isValidTimeSlotForYear4(LocalTime startTime, LocalTime endTime, String slotType) {
         return (startTime.equals(LocalTime.of(9, 0)) && endTime.equals(LocalTime.of(10, 30)) && slotType.equals("LECTURE")) ||
                 (startTime.equals(LocalTime.of(13, 30)) && endTime.equals(LocalTime.of(14, 30)) && slotType.equals("LECTURE")) ||
                 (startTime.equals(LocalTime.of(14, 45)) && endTime.equals(LocalTime.of(16, 15)) && slotType.equals("LECTURE")) ||
@@ -797,7 +742,7 @@ public class TimeTableConstraintProvider implements ConstraintProvider {
     }
 
     // Other year-specific validation methods remain unchanged...
-    private boolean isValidTimeSlotForYear3(LocalTime startTime, LocalTime endTime, String slotType) {
+    static boolean isValidTimeSlotForYear3(LocalTime startTime, LocalTime endTime, String slotType) {
         return (startTime.equals(LocalTime.of(9, 0)) && endTime.equals(LocalTime.of(10, 30)) && slotType.equals("LECTURE")) ||
                 (startTime.equals(LocalTime.of(11, 15)) && endTime.equals(LocalTime.of(12, 15)) && slotType.equals("LECTURE")) ||
                 (startTime.equals(LocalTime.of(13, 30)) && endTime.equals(LocalTime.of(15, 0)) && slotType.equals("LECTURE")) ||
@@ -806,7 +751,7 @@ public class TimeTableConstraintProvider implements ConstraintProvider {
                 (startTime.equals(LocalTime.of(9, 0)) && endTime.equals(LocalTime.of(11, 0)) && slotType.equals("LAB"));
     }
 
-    private boolean isValidTimeSlotForYear2(LocalTime startTime, LocalTime endTime, String slotType) {
+    static boolean isValidTimeSlotForYear2(LocalTime startTime, LocalTime endTime, String slotType) {
         return (startTime.equals(LocalTime.of(9, 0)) && endTime.equals(LocalTime.of(10, 30)) && slotType.equals("LECTURE")) ||
                 (startTime.equals(LocalTime.of(10, 45)) && endTime.equals(LocalTime.of(12, 15)) && slotType.equals("LECTURE")) ||
                 (startTime.equals(LocalTime.of(12, 15)) && endTime.equals(LocalTime.of(13, 15)) && slotType.equals("LECTURE")) ||
@@ -814,7 +759,7 @@ public class TimeTableConstraintProvider implements ConstraintProvider {
                 (startTime.equals(LocalTime.of(14, 30)) && endTime.equals(LocalTime.of(16, 30)) && slotType.equals("LAB"));
     }
 
-    private boolean isValidTimeSlotForYear1(LocalTime startTime, LocalTime endTime, String slotType) {
+    static boolean isValidTimeSlotForYear1(LocalTime startTime, LocalTime endTime, String slotType) {
         return (startTime.equals(LocalTime.of(9, 0)) && endTime.equals(LocalTime.of(10, 30)) && slotType.equals("LECTURE")) ||
                 (startTime.equals(LocalTime.of(10, 45)) && endTime.equals(LocalTime.of(12, 15)) && slotType.equals("LECTURE")) ||
                 (startTime.equals(LocalTime.of(12, 15)) && endTime.equals(LocalTime.of(13, 15)) && slotType.equals("LECTURE")) ||
@@ -834,28 +779,28 @@ public class TimeTableConstraintProvider implements ConstraintProvider {
 
 
     private boolean hasTimeGap(Lesson lesson1, Lesson lesson2) {
-        return ChronoUnit.MINUTES.between(
-                getEndTime(lesson1),
-                getStartTime(lesson2)) > MAX_GAP_MINUTES;
+        return calculateTimeGap(lesson1, lesson2) > MAX_GAP_MINUTES;
     }
 
     private int calculateTimeGap(Lesson lesson1, Lesson lesson2) {
-        return (int) ChronoUnit.MINUTES.between(
-                getEndTime(lesson1),
-                getStartTime(lesson2));
+        TimeSlot slot1 = lesson1.getTimeSlot();
+        TimeSlot slot2 = lesson2.getTimeSlot();
+        SlotRelationTable relationTable = slot1.getRelationTable();
+        if (relationTable != null && relationTable.contains(slot1, slot2)) {
+            return relationTable.gapMinutes(slot1, slot2);
+        }
+        return slot1.gapMinutesTo(slot2);
     }
 
     private boolean isSameDay(Lesson lesson1, Lesson lesson2) {
-        return lesson1.getTimeSlot().getDay().equals(lesson2.getTimeSlot().getDay());
+        return lesson1.getTimeSlot().isSameDay(lesson2.getTimeSlot());
     }
 
     private boolean isOverlapping(Lesson lesson1, Lesson lesson2) {
-        LocalTime start1 = getStartTime(lesson1);
-        LocalTime end1 = getEndTime(lesson1);
-        LocalTime start2 = getStartTime(lesson2);
-        LocalTime end2 = getEndTime(lesson2);
+        return lesson1.getTimeSlot().overlaps(lesson2.getTimeSlot());
+    }
 
-        return (start1.isBefore(end2) || start1.equals(end2)) &&
-                (start2.isBefore(end1) || start2.equals(end1));
+    private static int minuteOfDay(LocalTime time) {
+        return time.getHour() * 60 + time.getMinute();
     }
 }
\ No newline at end of file
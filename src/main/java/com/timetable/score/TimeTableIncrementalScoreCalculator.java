@@ -0,0 +1,516 @@
+package com.timetable.score;
+
+import com.timetable.domain.*;
+import org.optaplanner.core.api.score.buildin.hardsoft.HardSoftScore;
+import org.optaplanner.core.api.score.calculator.IncrementalScoreCalculator;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.timetable.score.TimeTableConstraintProvider.*;
+
+/**
+ * Hand-written alternative to TimeTableConstraintProvider that produces the same HardSoftScore.
+ * Occupancy counts per batch and room are kept in flat arrays indexed by slot, so a time slot
+ * change only touches the counters of the moved lesson instead of re-evaluating every constraint stream.
+ * Pair rules that depend on lesson order (gaps, consecutive lessons, faculty breaks) walk the moved
+ * lesson's batch or faculty, which holds a few dozen lessons at most.
+ */
+public class TimeTableIncrementalScoreCalculator implements IncrementalScoreCalculator<TimeTable, HardSoftScore> {
+    private static final LocalTime MINOR_START_TIME = LocalTime.of(18, 0);
+    private static final int LAB_DURATION_MINUTES = 120;
+    // Positions in the fact index array of a lesson
+    private static final int BATCH = 0;
+    private static final int FACULTY = 1;
+    private static final int ROOM = 2;
+    private static final int COURSE = 3;
+
+    private TimeTable workingSolution;
+
+    // Slots are indexed by TimeSlot.getIndex(); slotsByIndex holds the slots seen at reset, to spot foreign ones
+    private TimeSlot[] slotsByIndex;
+    // Dense batch, faculty, room and course indexes of each lesson seen at reset, resolved once because those
+    // facts do not change between resets; null is a key of its own, like in groupBy and Joiners.equal
+    private Map<Lesson, int[]> lessonFactIndexes;
+    private int slotCount;
+    private int batchCount;
+    private int courseCount;
+    private int dayCount;
+    private int joinDayCount;
+
+    // Per slot: the day name key used by the groupBy constraints and the day index key used by the joins
+    private int[] slotDays;
+    private int[] slotJoinDays;
+    private int[] slotFlags;   // slotCount x slotCount, SlotRelationTable flags
+    private int[] slotGaps;    // slotCount x slotCount, gap minutes from the first slot to the second
+    private int[][] batchClashSlots; // Slots that clash with each slot for lessons of the same batch
+    private int[] requiredLabs;      // Per batch
+
+    // Lesson counts per group
+    private int[] batchLessons;
+    private int[] facultyLessons;
+    private int[] roomLessons;
+    private int[] batchSlotLessons;
+    private int[] roomSlotLessons;
+    private int[] roomSlotMinorLessons;
+    private int[] batchDayLessons;
+    private int[] batchDayLabLessons;
+    private int[] batchLabDays;
+    private int[] batchDayCourseLessons;
+    private int[] facultyBatchDayLessons;
+    private int[] facultyJoinDayBatchedLessons;
+    private int[] facultyJoinDayBatchLessons;
+
+    // Lessons per batch and per faculty, for the order-dependent pair rules
+    private List<List<Lesson>> lessonsByBatch;
+    private List<List<Lesson>> lessonsByFaculty;
+
+    private int hardScore;
+    private int softScore;
+
+    @Override
+    public void resetWorkingSolution(TimeTable workingSolution) {
+        this.workingSolution = workingSolution;
+        List<Lesson> lessons = allLessons(workingSolution);
+        indexFacts(workingSolution, lessons);
+
+        hardScore = 0;
+        softScore = 0;
+        for (Lesson lesson : lessons) {
+            if (lesson.getTimeSlot() != null) {
+                update(lesson, 1);
+            }
+        }
+    }
+
+    @Override
+    public void beforeEntityAdded(Object entity) {
+        // Counted once it is added
+    }
+
+    @Override
+    public void afterEntityAdded(Object entity) {
+        insert((Lesson) entity);
+    }
+
+    @Override
+    public void beforeVariableChanged(Object entity, String variableName) {
+        retract((Lesson) entity);
+    }
+
+    @Override
+    public void afterVariableChanged(Object entity, String variableName) {
+        insert((Lesson) entity);
+    }
+
+    @Override
+    public void beforeEntityRemoved(Object entity) {
+        retract((Lesson) entity);
+    }
+
+    @Override
+    public void afterEntityRemoved(Object entity) {
+        // Already uncounted before removal
+    }
+
+    @Override
+    public HardSoftScore calculateScore() {
+        return HardSoftScore.of(hardScore, softScore);
+    }
+
+    private void insert(Lesson lesson) {
+        if (lesson.getTimeSlot() == null) {
+            return;
+        }
+        if (!isIndexed(lesson)) {
+            // A fact added after the last reset, so the arrays have no room for it yet
+            resetWorkingSolution(workingSolution);
+            return;
+        }
+        update(lesson, 1);
+    }
+
+    private void retract(Lesson lesson) {
+        if (lesson.getTimeSlot() != null) {
+            update(lesson, -1);
+        }
+    }
+
+    private boolean isIndexed(Lesson lesson) {
+        int slot = lesson.getTimeSlot().getIndex();
+        return slot >= 0 && slot < slotCount && slotsByIndex[slot] == lesson.getTimeSlot()
+                && lessonFactIndexes.containsKey(lesson);
+    }
+
+    // Adds (sign 1) or removes (sign -1) the lesson's contribution to every constraint
+    private void update(Lesson lesson, int sign) {
+        TimeSlot timeSlot = lesson.getTimeSlot();
+        StudentBatch batch = lesson.getStudentBatch();
+        Faculty faculty = lesson.getFaculty();
+        int slot = timeSlot.getIndex();
+        int[] factIndexes = lessonFactIndexes.get(lesson);
+        int b = factIndexes[BATCH];
+        int f = factIndexes[FACULTY];
+        int r = factIndexes[ROOM];
+        int c = factIndexes[COURSE];
+        int day = slotDays[slot];
+        int joinDay = slotJoinDays[slot];
+        int self = sign < 0 ? 1 : 0; // A retracted lesson is still counted, so leave it out of its own pairs
+        boolean minor = isMinor(lesson);
+        boolean lab = lesson.getCourse() != null && lesson.getCourse().isLabCourse();
+
+        // Lessons sharing the exact room slot
+        int roomSlot = r * slotCount + slot;
+        hardScore -= sign * 10 * (roomSlotLessons[roomSlot] - self);
+        int minorsBefore = roomSlotMinorLessons[roomSlot];
+        int lessonsBefore = roomSlotLessons[roomSlot];
+        int minorsAfter = minorsBefore + (minor ? sign : 0);
+        int lessonsAfter = lessonsBefore + sign;
+        // No room conflicts for minors: each minor lesson against every other lesson in its room slot
+        hardScore -= 10 * (minorsAfter * (lessonsAfter - 1) - minorsBefore * (lessonsBefore - 1));
+        roomSlotMinorLessons[roomSlot] = minorsAfter;
+        roomSlotLessons[roomSlot] = lessonsAfter;
+
+        // Student batch time conflict counts every clashing slot of the batch, the exact slot included
+        int batchClashes = -self;
+        for (int clashSlot : batchClashSlots[slot]) {
+            batchClashes += batchSlotLessons[b * slotCount + clashSlot];
+        }
+        hardScore -= sign * 10 * batchClashes;
+        batchSlotLessons[b * slotCount + slot] += sign;
+
+        // Faculty teaching multiple batches on the same day
+        if (faculty != null && batch != null) {
+            int facultyJoinDay = f * joinDayCount + joinDay;
+            hardScore -= sign * 10 * (facultyJoinDayBatchedLessons[facultyJoinDay]
+                    - facultyJoinDayBatchLessons[facultyJoinDay * batchCount + b]);
+            facultyJoinDayBatchedLessons[facultyJoinDay] += sign;
+            facultyJoinDayBatchLessons[facultyJoinDay * batchCount + b] += sign;
+        }
+
+        // Grouped counts
+        batchLessons[b] = updateGroup(batchLessons[b], sign, TimeTableIncrementalScoreCalculator::batchLoadPenalty, false);
+        facultyLessons[f] = updateGroup(facultyLessons[f], sign, TimeTableIncrementalScoreCalculator::facultyLoadPenalty, false);
+        Room room = lesson.getRoom();
+        int roomBefore = roomLessons[r];
+        roomLessons[r] += sign;
+        softScore -= roomLoadPenalty(room, roomLessons[r]) - roomLoadPenalty(room, roomBefore);
+
+        int batchDay = b * dayCount + day;
+        batchDayLessons[batchDay] = updateGroup(batchDayLessons[batchDay], sign,
+                TimeTableIncrementalScoreCalculator::dailyBatchLoadPenalty, false);
+        int batchDayCourse = batchDay * courseCount + c;
+        batchDayCourseLessons[batchDayCourse] = updateGroup(batchDayCourseLessons[batchDayCourse], sign,
+                count -> count > 1 ? 10 * (count - 1) : 0, true);
+        int facultyBatchDay = (f * batchCount + b) * dayCount + day;
+        facultyBatchDayLessons[facultyBatchDay] = updateGroup(facultyBatchDayLessons[facultyBatchDay], sign,
+                count -> count > 2 ? 10 * (count - 2) : 0, true);
+
+        if (lab) {
+            int labsBefore = batchDayLabLessons[batchDay];
+            batchDayLabLessons[batchDay] = updateGroup(labsBefore, sign, count -> count > 1 ? 10 * (count - 1) : 0, true);
+            if (batch != null && lesson.getCourse() != null) {
+                int labDaysBefore = batchLabDays[b];
+                if (labsBefore == 0 && sign > 0) {
+                    batchLabDays[b]++;
+                } else if (labsBefore == 1 && sign < 0) {
+                    batchLabDays[b]--;
+                }
+                hardScore -= weeklyLabPenalty(requiredLabs[b], batchLabDays[b]) - weeklyLabPenalty(requiredLabs[b], labDaysBefore);
+            }
+        }
+
+        // Order-dependent pairs within the faculty and within the batch on the same day
+        if (faculty != null) {
+            for (Lesson other : lessonsByFaculty.get(f)) {
+                if (other != lesson && timeSlot.getDayIndex() == other.getTimeSlot().getDayIndex()
+                        && (pairFlags(lesson, other) & SlotRelationTable.FACULTY_CLASH) != 0) {
+                    hardScore -= sign * 10;
+                }
+            }
+            updateList(lessonsByFaculty.get(f), lesson, sign);
+        }
+        for (Lesson other : lessonsByBatch.get(b)) {
+            if (other != lesson && timeSlot.getDayIndex() == other.getTimeSlot().getDayIndex()) {
+                softScore += sign * batchPairScore(lesson, other);
+            }
+        }
+        updateList(lessonsByBatch.get(b), lesson, sign);
+
+        hardScore += sign * lessonHardScore(lesson);
+        softScore += sign * lessonSoftScore(lesson);
+    }
+
+    // Soft score of two lessons of the same batch on the same day, taken in planning id order like forEachUniquePair
+    private int batchPairScore(Lesson lesson, Lesson other) {
+        Lesson first = lesson.getId().compareTo(other.getId()) < 0 ? lesson : other;
+        Lesson second = first == lesson ? other : lesson;
+        int cell = first.getTimeSlot().getIndex() * slotCount + second.getTimeSlot().getIndex();
+        int gap = slotGaps[cell];
+        boolean consecutive = (slotFlags[cell] & SlotRelationTable.FOLLOWED_BY) != 0;
+        boolean roomChange = first.getRoom() != second.getRoom();
+        boolean near = Math.abs(gap) <= MAX_GAP_MINUTES;
+
+        int score = 0;
+        if (consecutive) {
+            score += 1;                       // Prefer contiguous lessons
+            if (roomChange) score -= 1;       // Room stability
+        } else if (near) {
+            score -= Math.abs(gap);           // Contiguous lessons
+        }
+        if (near && roomChange) score -= 1;   // Minimize room changes
+        if (gap > MAX_GAP_MINUTES) score -= gap; // Minimize gaps in schedule
+        return score;
+    }
+
+    private int pairFlags(Lesson lesson, Lesson other) {
+        Lesson first = lesson.getId().compareTo(other.getId()) < 0 ? lesson : other;
+        Lesson second = first == lesson ? other : lesson;
+        return slotFlags[first.getTimeSlot().getIndex() * slotCount + second.getTimeSlot().getIndex()];
+    }
+
+    // Hard score of the rules that look at one lesson only
+    private static int lessonHardScore(Lesson lesson) {
+        Course course = lesson.getCourse();
+        Room room = lesson.getRoom();
+        StudentBatch batch = lesson.getStudentBatch();
+        TimeSlot timeSlot = lesson.getTimeSlot();
+        String lessonType = lesson.getLessonType();
+        int duration = timeSlot.getDurationInMinutes();
+        int score = 0;
+
+        if (batch != null && room != null && batch.getStrength() > room.getCapacity()) {
+            score -= 5 * ((batch.getStrength() - room.getCapacity()) / 5); // Room capacity
+        }
+        if (lesson.getFaculty() != null && course != null && !course.getEligibleFaculty().contains(lesson.getFaculty())) {
+            score -= 8; // Teacher qualification
+        }
+        if (course != null && room != null && course.isLabCourse() && !isLabRoom(room)) {
+            score -= 10; // Lab room assignment
+        }
+        if (course != null && room != null && !course.isLabCourse() && isLabRoom(room)) {
+            score -= 10; // Lecture in regular rooms
+        }
+        if (!isRoomAllowedForBatch(room, batch)) {
+            score -= 10; // Predefined room assignment
+        }
+        if (isLunchHourForYear(lesson)) {
+            score -= 1;
+        }
+        if ("LAB".equals(lessonType) && !isLabInCorrectTimeSlot(lesson)) {
+            score -= 10;
+        }
+        if (isMinor(lesson)) {
+            if (room == null || !course.getLectureRoomIDs().contains(room.getId())) {
+                score -= 10; // Minors must be assigned to valid rooms
+            }
+            if (!timeSlot.getStartTime().equals(MINOR_START_TIME)) {
+                score -= 10; // Minor courses must be scheduled at 6:00 PM
+            }
+        }
+        if ("LECTURE".equals(lessonType) && duration > 90) {
+            score -= 10;
+        }
+        if ("LAB".equals(lessonType) && duration != LAB_DURATION_MINUTES) {
+            score -= 10;
+        }
+        if (!"MINOR".equals(lessonType) && batch != null && !isTimeSlotValidForBatch(batch, timeSlot)) {
+            score -= 100; // Batch time slot compatibility
+        }
+        if (duration == LAB_DURATION_MINUTES
+                && (!"LAB".equals(lessonType) || batch == null || room == null
+                        || !batch.getPracticalRoomIDs().contains(room.getId()))) {
+            score -= 10;
+        }
+        if (duration < LAB_DURATION_MINUTES
+                && (!"LECTURE".equals(lessonType) || batch == null || room == null
+                        || !batch.getLectureRoomIDs().contains(room.getId()))) {
+            score -= 10;
+        }
+        return score;
+    }
+
+    // Soft score of the rules that look at one lesson only
+    private static int lessonSoftScore(Lesson lesson) {
+        int score = -Math.abs(lesson.getTimeSlot().getStartMinuteOfDay() - PREFERRED_START_MINUTE);
+        if (lesson.getOriginalTimeSlot() != null && lesson.getTimeSlot() != lesson.getOriginalTimeSlot()) {
+            score -= CHANGED_LESSON_PENALTY; // Minimize changes to the original timetable
+        }
+        return score;
+    }
+
+    private static boolean isMinor(Lesson lesson) {
+        return lesson.getCourse() != null && "minor".equals(lesson.getCourse().getCourseType());
+    }
+
+    // Moves a group count by sign and applies the change of its penalty; an empty group has no penalty
+    private int updateGroup(int countBefore, int sign, GroupPenalty penalty, boolean hard) {
+        int countAfter = countBefore + sign;
+        int delta = (countAfter == 0 ? 0 : penalty.of(countAfter)) - (countBefore == 0 ? 0 : penalty.of(countBefore));
+        if (hard) {
+            hardScore -= delta;
+        } else {
+            softScore -= delta;
+        }
+        return countAfter;
+    }
+
+    private static int batchLoadPenalty(int count) {
+        if (count >= MIN_CLASSES_PER_BATCH && count <= MAX_CLASSES_PER_BATCH) return 0;
+        return 10 * Math.abs(count - ((MIN_CLASSES_PER_BATCH + MAX_CLASSES_PER_BATCH) / 2));
+    }
+
+    private static int facultyLoadPenalty(int count) {
+        int deviation = Math.abs(count - TARGET_FACULTY_LESSONS);
+        return deviation > 2 ? 10 * deviation : 0;
+    }
+
+    private static int roomLoadPenalty(Room room, int count) {
+        if (count == 0 || room == null) return 0;
+        int ideal = room.getIdealDailyUsage();
+        return count > ideal || count < Math.max(1, ideal - 1) ? Math.abs(count - ideal) : 0;
+    }
+
+    private static int dailyBatchLoadPenalty(int count) {
+        int deviation = Math.abs(count - TARGET_DAILY_LESSONS_PER_BATCH);
+        return deviation > ALLOWED_VARIANCE ? deviation : 0;
+    }
+
+    private static int weeklyLabPenalty(int requiredLabs, int labDays) {
+        return labDays > 0 && requiredLabs > labDays ? 10 * (requiredLabs - labDays) : 0;
+    }
+
+    private static void updateList(List<Lesson> lessons, Lesson lesson, int sign) {
+        if (sign > 0) {
+            lessons.add(lesson);
+        } else {
+            lessons.remove(lesson);
+        }
+    }
+
+    private static List<Lesson> allLessons(TimeTable timeTable) {
+        List<Lesson> lessons = new ArrayList<>();
+        if (timeTable.getLessonList() != null) lessons.addAll(timeTable.getLessonList());
+        if (timeTable.getMinorLessonList() != null) lessons.addAll(timeTable.getMinorLessonList());
+        return lessons;
+    }
+
+    // Assigns dense indexes to every fact the lessons can refer to and sizes the count arrays for them
+    private void indexFacts(TimeTable timeTable, List<Lesson> lessons) {
+        Map<StudentBatch, Integer> batchIndexes = new HashMap<>();
+        Map<Faculty, Integer> facultyIndexes = new HashMap<>();
+        Map<Room, Integer> roomIndexes = new HashMap<>();
+        Map<Course, Integer> courseIndexes = new HashMap<>();
+        lessonFactIndexes = new IdentityHashMap<>();
+        List<TimeSlot> slots = new ArrayList<>();
+
+        slots.addAll(timeTable.getTimeSlotList() != null ? timeTable.getTimeSlotList() : List.of());
+        slots.addAll(timeTable.getMinorTimeSlotList() != null ? timeTable.getMinorTimeSlotList() : List.of());
+        for (Lesson lesson : lessons) {
+            if (lesson.getTimeSlotRange() != null) {
+                slots.addAll(lesson.getTimeSlotRange());
+            }
+            if (lesson.getTimeSlot() != null) {
+                slots.add(lesson.getTimeSlot());
+            }
+            int[] factIndexes = new int[4];
+            factIndexes[BATCH] = batchIndexes.computeIfAbsent(lesson.getStudentBatch(), key -> batchIndexes.size());
+            factIndexes[FACULTY] = facultyIndexes.computeIfAbsent(lesson.getFaculty(), key -> facultyIndexes.size());
+            factIndexes[ROOM] = roomIndexes.computeIfAbsent(lesson.getRoom(), key -> roomIndexes.size());
+            factIndexes[COURSE] = courseIndexes.computeIfAbsent(lesson.getCourse(), key -> courseIndexes.size());
+            lessonFactIndexes.put(lesson, factIndexes);
+        }
+        indexSlots(slots);
+        batchCount = batchIndexes.size();
+        courseCount = courseIndexes.size();
+        int facultyCount = facultyIndexes.size();
+        int roomCount = roomIndexes.size();
+
+        // Slot relations
+        Map<String, Integer> dayKeys = new HashMap<>();
+        Map<Integer, Integer> joinDayKeys = new HashMap<>();
+        slotDays = new int[slotCount];
+        slotJoinDays = new int[slotCount];
+        slotFlags = new int[slotCount * slotCount];
+        slotGaps = new int[slotCount * slotCount];
+        batchClashSlots = new int[slotCount][];
+        for (int i = 0; i < slotCount; i++) {
+            TimeSlot first = slotsByIndex[i];
+            List<Integer> clashes = new ArrayList<>();
+            if (first == null) {
+                batchClashSlots[i] = new int[0];
+                continue; // A catalogue slot no lesson can take
+            }
+            slotDays[i] = dayKeys.computeIfAbsent(first.getDay(), key -> dayKeys.size());
+            slotJoinDays[i] = joinDayKeys.computeIfAbsent(first.getDayIndex(), key -> joinDayKeys.size());
+            for (int j = 0; j < slotCount; j++) {
+                TimeSlot second = slotsByIndex[j];
+                if (second == null) {
+                    continue;
+                }
+                int flags = SlotRelationTable.computeFlags(first, second);
+                slotFlags[i * slotCount + j] = flags;
+                slotGaps[i * slotCount + j] = first.gapMinutesTo(second);
+                if ((flags & SlotRelationTable.BATCH_CLASH) != 0) {
+                    clashes.add(j);
+                }
+            }
+            batchClashSlots[i] = clashes.stream().mapToInt(Integer::intValue).toArray();
+        }
+        dayCount = Math.max(1, dayKeys.size());
+        joinDayCount = Math.max(1, joinDayKeys.size());
+
+        requiredLabs = new int[batchCount];
+        for (Map.Entry<StudentBatch, Integer> entry : batchIndexes.entrySet()) {
+            requiredLabs[entry.getValue()] = entry.getKey() != null ? entry.getKey().getRequiredLabsPerWeek() : 0;
+        }
+
+        batchLessons = new int[batchCount];
+        facultyLessons = new int[facultyCount];
+        roomLessons = new int[roomCount];
+        batchSlotLessons = new int[batchCount * slotCount];
+        roomSlotLessons = new int[roomCount * slotCount];
+        roomSlotMinorLessons = new int[roomCount * slotCount];
+        batchDayLessons = new int[batchCount * dayCount];
+        batchDayLabLessons = new int[batchCount * dayCount];
+        batchLabDays = new int[batchCount];
+        batchDayCourseLessons = new int[batchCount * dayCount * courseCount];
+        facultyBatchDayLessons = new int[facultyCount * batchCount * dayCount];
+        facultyJoinDayBatchedLessons = new int[facultyCount * joinDayCount];
+        facultyJoinDayBatchLessons = new int[facultyCount * joinDayCount * batchCount];
+
+        lessonsByBatch = new ArrayList<>();
+        for (int i = 0; i < batchCount; i++) lessonsByBatch.add(new ArrayList<>());
+        lessonsByFaculty = new ArrayList<>();
+        for (int i = 0; i < facultyCount; i++) lessonsByFaculty.add(new ArrayList<>());
+    }
+
+    // Places every slot at its catalogue index; the counts are sized for the largest index in use
+    private void indexSlots(List<TimeSlot> slots) {
+        slotCount = 0;
+        for (TimeSlot timeSlot : slots) {
+            if (timeSlot.getIndex() < 0) {
+                throw new IllegalStateException("Time slot " + timeSlot.getId() + " was not interned by a TimeSlotCatalogue");
+            }
+            slotCount = Math.max(slotCount, timeSlot.getIndex() + 1);
+        }
+        slotsByIndex = new TimeSlot[slotCount];
+        for (TimeSlot timeSlot : slots) {
+            TimeSlot indexed = slotsByIndex[timeSlot.getIndex()];
+            if (indexed != null && indexed != timeSlot) {
+                throw new IllegalStateException("Time slots " + indexed.getId() + " and " + timeSlot.getId()
+                        + " share index " + timeSlot.getIndex() + "; they must come from one TimeSlotCatalogue");
+            }
+            slotsByIndex[timeSlot.getIndex()] = timeSlot;
+        }
+    }
+
+    @FunctionalInterface
+    private interface GroupPenalty {
+        int of(int count);
+    }
+}
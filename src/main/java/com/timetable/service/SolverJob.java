@@ -0,0 +1,121 @@
+package com.timetable.service;
+
+import com.timetable.domain.TimeTable;
+import com.timetable.solver.ProgressEvent;
+import org.optaplanner.core.api.solver.Solver;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * One submitted timetable and the state of its solve. The best solution is replaced as the solver improves it,
+ * so it can be read at any time; it is the unsolved problem until solving starts.
+ */
+public class SolverJob {
+    public enum Status { QUEUED, SOLVING, COMPLETED, CANCELLED, FAILED }
+
+    private final long id;
+    private final Instant submittedAt = Instant.now();
+    private volatile Status status = Status.QUEUED;
+    private volatile TimeTable bestSolution;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile String error;
+    private volatile String stoppedBy; // Termination condition that ended the solve
+    private Solver<TimeTable> solver; // Set while solving, guarded by this
+    private boolean cancelRequested;  // Guarded by this
+    private final List<ProgressEvent> events = new ArrayList<>(); // Guarded by this
+    private final List<BlockingQueue<ProgressEvent>> subscribers = new ArrayList<>(); // Guarded by this
+
+    SolverJob(long id, TimeTable problem) {
+        this.id = id;
+        this.bestSolution = problem;
+    }
+
+    // Returns false when the job was cancelled while queued, so the worker skips it
+    synchronized boolean solvingStarted(Solver<TimeTable> solver) {
+        if (cancelRequested) {
+            return false;
+        }
+        this.solver = solver;
+        this.status = Status.SOLVING;
+        this.startedAt = Instant.now();
+        return true;
+    }
+
+    // solve() clears a terminateEarly issued before it started, so a cancel that came in between is repeated
+    synchronized void solverRunning() {
+        if (cancelRequested && solver != null) {
+            solver.terminateEarly();
+        }
+    }
+
+    void bestSolutionChanged(TimeTable bestSolution) {
+        this.bestSolution = bestSolution;
+    }
+
+    synchronized void progress(ProgressEvent event) {
+        events.add(event);
+        for (BlockingQueue<ProgressEvent> subscriber : subscribers) {
+            subscriber.offer(event);
+        }
+    }
+
+    // A queue holding every event so far that receives the later ones until unsubscribed
+    public synchronized BlockingQueue<ProgressEvent> subscribe() {
+        BlockingQueue<ProgressEvent> subscriber = new LinkedBlockingQueue<>(events);
+        subscribers.add(subscriber);
+        return subscriber;
+    }
+
+    public synchronized void unsubscribe(BlockingQueue<ProgressEvent> subscriber) {
+        subscribers.remove(subscriber);
+    }
+
+    synchronized void solvingEnded(TimeTable solution, String stoppedBy, Throwable failure) {
+        solver = null;
+        finishedAt = Instant.now();
+        if (failure != null) {
+            status = Status.FAILED;
+            error = failure.toString();
+            return;
+        }
+        bestSolution = solution;
+        this.stoppedBy = stoppedBy;
+        status = cancelRequested ? Status.CANCELLED : Status.COMPLETED;
+    }
+
+    // A queued job never starts; a solving one stops at the next step and keeps its best solution
+    synchronized boolean cancel() {
+        if (status != Status.QUEUED && status != Status.SOLVING) {
+            return false;
+        }
+        cancelRequested = true;
+        if (solver != null) {
+            solver.terminateEarly();
+        } else {
+            status = Status.CANCELLED;
+            finishedAt = Instant.now();
+        }
+        return true;
+    }
+
+    // Getters
+    public long getId() { return id; }
+    public Instant getSubmittedAt() { return submittedAt; }
+    public Status getStatus() { return status; }
+    public TimeTable getBestSolution() { return bestSolution; }
+    public Instant getStartedAt() { return startedAt; }
+    public Instant getFinishedAt() { return finishedAt; }
+    public String getError() { return error; }
+    public String getStoppedBy() { return stoppedBy; }
+
+    // No more events follow once a job is finished
+    public boolean isFinished() {
+        Status current = status;
+        return current != Status.QUEUED && current != Status.SOLVING;
+    }
+}
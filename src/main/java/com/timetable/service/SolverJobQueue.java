@@ -0,0 +1,149 @@
+package com.timetable.service;
+
+import com.timetable.domain.TimeTable;
+import com.timetable.solver.ConstructionReport;
+import com.timetable.solver.SolverProgressMonitor;
+import com.timetable.solver.TerminationPolicy;
+import org.optaplanner.core.api.score.buildin.hardsoft.HardSoftScore;
+import org.optaplanner.core.api.solver.SolutionManager;
+import org.optaplanner.core.api.solver.Solver;
+import org.optaplanner.core.api.solver.SolverFactory;
+import org.optaplanner.core.config.solver.SolverConfig;
+import org.optaplanner.core.impl.phase.event.PhaseLifecycleListenerAdapter;
+import org.optaplanner.core.impl.solver.DefaultSolver;
+import org.optaplanner.core.impl.solver.scope.SolverScope;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Solves submitted timetables on a fixed number of workers. Jobs beyond the busy workers wait in a bounded
+ * queue; a submission that finds it full is rejected instead of waiting. Every worker builds its solver from
+ * the one shared SolverFactory, which is thread-safe and parses the configuration once. Each new best solution
+ * of a job is recorded as a ProgressEvent. Only the most recent finished jobs are kept; older completed, failed and
+ * cancelled ones are dropped, with their solutions, so a long-running service does not grow without bound.
+ */
+public class SolverJobQueue {
+    private static final Logger logger = Logger.getLogger(SolverJobQueue.class.getName());
+    static final int RETAINED_FINISHED_JOBS = 100;
+
+    private final SolverFactory<TimeTable> solverFactory;
+    private final SolutionManager<TimeTable, HardSoftScore> solutionManager; // Breaks best scores down by constraint
+    private final TerminationPolicy terminationPolicy; // The one in the solver configuration, to report what fired
+    private final ThreadPoolExecutor workers;
+    private final Map<Long, SolverJob> jobs = new ConcurrentHashMap<>();
+    private final AtomicLong nextJobId = new AtomicLong(1);
+
+    public SolverJobQueue(SolverConfig solverConfig, TerminationPolicy terminationPolicy, int workerCount,
+                          int queueCapacity) {
+        this.terminationPolicy = terminationPolicy;
+        this.solverFactory = SolverFactory.create(solverConfig);
+        this.solutionManager = SolverProgressMonitor.createSolutionManager(solverConfig, solverFactory);
+        AtomicInteger workerNumber = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "solver-worker-" + workerNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    // Throws RejectedExecutionException when every worker is busy and the queue is full
+    public SolverJob submit(TimeTable problem) {
+        SolverJob job = new SolverJob(nextJobId.getAndIncrement(), problem);
+        jobs.put(job.getId(), job);
+        try {
+            workers.execute(() -> solve(job, problem));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            throw e;
+        }
+        logger.info("Queued job " + job.getId() + " with " + problem.getLessonList().size() + " lessons");
+        evictFinishedJobs(); // Also catches jobs cancelled while queued, which never reach a worker's end of solve
+        return job;
+    }
+
+    private void solve(SolverJob job, TimeTable problem) {
+        Solver<TimeTable> solver = solverFactory.buildSolver();
+        solver.addEventListener(event -> job.bestSolutionChanged(event.getNewBestSolution()));
+        ConstructionReport.attach(solver, "Job " + job.getId());
+        // Phase events are only exposed on the implementation class
+        ((DefaultSolver<TimeTable>) solver).addPhaseLifecycleListener(new PhaseLifecycleListenerAdapter<>() {
+            @Override
+            public void solvingStarted(SolverScope<TimeTable> solverScope) {
+                job.solverRunning();
+            }
+        });
+        if (!job.solvingStarted(solver)) {
+            return;
+        }
+        logger.info("Solving job " + job.getId());
+        try {
+            TimeTable solution;
+            SolverProgressMonitor monitor = new SolverProgressMonitor(solver, solutionManager, job::progress);
+            try {
+                solution = solver.solve(problem);
+            } finally {
+                monitor.close(); // Delivers the last events before the job reports that it finished
+            }
+            job.solvingEnded(solution, terminationPolicy.firedCondition(solver), null);
+            logger.info("Job " + job.getId() + " " + job.getStatus() + " with score " + solution.getScore()
+                    + ", stopped by the " + job.getStoppedBy());
+        } catch (RuntimeException e) {
+            logger.log(Level.SEVERE, "Job " + job.getId() + " failed", e);
+            job.solvingEnded(null, null, e);
+        }
+        evictFinishedJobs();
+    }
+
+    // Drops the oldest finished jobs beyond RETAINED_FINISHED_JOBS; jobs still queued or solving always stay
+    private synchronized void evictFinishedJobs() {
+        List<SolverJob> finished = new ArrayList<>();
+        for (SolverJob job : jobs.values()) {
+            if (job.isFinished()) {
+                finished.add(job);
+            }
+        }
+        if (finished.size() <= RETAINED_FINISHED_JOBS) {
+            return;
+        }
+        finished.sort(Comparator.comparingLong(SolverJob::getId));
+        for (SolverJob job : finished.subList(0, finished.size() - RETAINED_FINISHED_JOBS)) {
+            jobs.remove(job.getId());
+            logger.fine("Evicted job " + job.getId());
+        }
+    }
+
+    public SolverJob getJob(long id) {
+        return jobs.get(id);
+    }
+
+    public List<SolverJob> getJobs() {
+        List<SolverJob> list = new ArrayList<>(jobs.values());
+        list.sort((a, b) -> Long.compare(a.getId(), b.getId()));
+        return list;
+    }
+
+    // Jobs waiting for a worker
+    public int getQueuedCount() {
+        return workers.getQueue().size();
+    }
+
+    public void shutdown() {
+        for (SolverJob job : jobs.values()) {
+            job.cancel();
+        }
+        workers.shutdownNow();
+    }
+}
@@ -0,0 +1,275 @@
+package com.timetable.service;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.timetable.TimeTableApp;
+import com.timetable.domain.Lesson;
+import com.timetable.domain.TimeTable;
+import com.timetable.solver.ProgressEvent;
+import com.timetable.solver.TerminationPolicy;
+import com.timetable.util.DatasetLoader;
+import com.timetable.util.Json;
+import org.optaplanner.core.config.solver.SolverConfig;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Local HTTP front end of a SolverJobQueue, on the JDK's built-in server and bound to the loopback address.
+ *
+ * POST   /jobs              zip of the five input CSVs; 202 with the job, 503 when the queue is full
+ * GET    /jobs              every job
+ * GET    /jobs/{id}         status and score of one job
+ * GET    /jobs/{id}/solution best solution so far as JSON
+ * GET    /jobs/{id}/export  best solution so far in the final_timetable.csv format
+ * GET    /jobs/{id}/events  Server-Sent Events: every best solution so far, then each new one, then "end"
+ * DELETE /jobs/{id}         cancel; a solving job keeps its best solution
+ */
+public class TimeTableServer {
+    private static final Logger logger = Logger.getLogger(TimeTableServer.class.getName());
+    private static final int KEEP_ALIVE_SECONDS = 15; // Comment line sent on an idle event stream
+
+    private final HttpServer server;
+    private final SolverJobQueue jobQueue;
+
+    public TimeTableServer(SolverConfig solverConfig, TerminationPolicy terminationPolicy, int port, int workerCount,
+                           int queueCapacity) throws IOException {
+        this.jobQueue = new SolverJobQueue(solverConfig, terminationPolicy, workerCount, queueCapacity);
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        this.server.createContext("/jobs", this::handleJobs);
+        this.server.setExecutor(Executors.newCachedThreadPool());
+    }
+
+    public void start() {
+        server.start();
+        logger.info("Listening on http://localhost:" + server.getAddress().getPort() + "/jobs");
+    }
+
+    public void stop() {
+        server.stop(0);
+        jobQueue.shutdown();
+    }
+
+    private void handleJobs(HttpExchange exchange) throws IOException {
+        try {
+            String method = exchange.getRequestMethod();
+            String[] path = exchange.getRequestURI().getPath().replaceAll("/+$", "").split("/");
+            // path[0] is empty and path[1] is "jobs"
+            if (path.length == 2) {
+                if (method.equals("POST")) {
+                    submit(exchange);
+                } else if (method.equals("GET")) {
+                    StringBuilder json = new StringBuilder("[");
+                    for (SolverJob job : jobQueue.getJobs()) {
+                        json.append(json.length() > 1 ? "," : "").append(jobJson(job));
+                    }
+                    send(exchange, 200, "application/json", json.append("]").toString());
+                } else {
+                    send(exchange, 405, "text/plain", "Use GET or POST");
+                }
+                return;
+            }
+
+            SolverJob job = findJob(path[2]);
+            if (job == null) {
+                send(exchange, 404, "text/plain", "No job " + path[2]);
+                return;
+            }
+            String resource = path.length > 3 ? path[3] : "";
+            if (path.length > 4 || !(resource.isEmpty() ? method.equals("GET") || method.equals("DELETE") : method.equals("GET"))) {
+                send(exchange, 405, "text/plain", "Unsupported request");
+            } else if (method.equals("DELETE")) {
+                boolean cancelled = job.cancel();
+                send(exchange, cancelled ? 202 : 409, "application/json", jobJson(job));
+            } else if (resource.isEmpty()) {
+                send(exchange, 200, "application/json", jobJson(job));
+            } else if (resource.equals("solution")) {
+                send(exchange, 200, "application/json", solutionJson(job.getBestSolution()));
+            } else if (resource.equals("events")) {
+                streamEvents(exchange, job);
+            } else if (resource.equals("export")) {
+                StringWriter csv = new StringWriter();
+                TimeTableApp.writeSolutionCSV(job.getBestSolution(), csv);
+                send(exchange, 200, "text/csv", csv.toString());
+            } else {
+                send(exchange, 404, "text/plain", "Unknown resource " + resource);
+            }
+        } catch (RuntimeException e) {
+            logger.log(Level.WARNING, "Error handling " + exchange.getRequestURI(), e);
+            send(exchange, 500, "text/plain", e.toString());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    // Holds the response open until the job finishes; a client that disconnects ends it with an IOException
+    private static void streamEvents(HttpExchange exchange, SolverJob job) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream; charset=utf-8");
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        exchange.sendResponseHeaders(200, 0);
+        BlockingQueue<ProgressEvent> events = job.subscribe();
+        try (Writer out = new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8)) {
+            int idleSeconds = 0;
+            while (true) {
+                ProgressEvent event = events.poll(1, TimeUnit.SECONDS);
+                if (event != null) {
+                    out.write("event: best-solution\ndata: " + event.toJson() + "\n\n");
+                    idleSeconds = 0;
+                } else if (job.isFinished()) {
+                    // Events reach the queue before the job finishes, so none are left behind
+                    out.write("event: end\ndata: " + jobJson(job) + "\n\n");
+                    break;
+                } else if (++idleSeconds >= KEEP_ALIVE_SECONDS) {
+                    out.write(": keep-alive\n\n");
+                    idleSeconds = 0;
+                } else {
+                    continue;
+                }
+                out.flush();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            job.unsubscribe(events);
+        }
+    }
+
+    // The body is a zip holding the CSVs under their usual names; directories inside it are ignored
+    private void submit(HttpExchange exchange) throws IOException {
+        Path dataDirectory = Files.createTempDirectory("timetable-job");
+        TimeTable problem;
+        try {
+            Set<String> files;
+            try {
+                files = unzipInputFiles(exchange.getRequestBody(), dataDirectory);
+            } catch (IOException e) {
+                // A truncated or corrupt zip
+                send(exchange, 400, "text/plain", "Invalid zip: " + e);
+                return;
+            }
+            if (!files.containsAll(DatasetLoader.FILE_NAMES)) {
+                List<String> missing = new ArrayList<>(DatasetLoader.FILE_NAMES);
+                missing.removeAll(files);
+                send(exchange, 400, "text/plain", "Expected a zip with " + String.join(", ", DatasetLoader.FILE_NAMES)
+                        + "; missing " + String.join(", ", missing));
+                return;
+            }
+            problem = TimeTableApp.loadProblem(dataDirectory);
+        } catch (RuntimeException e) {
+            send(exchange, 400, "text/plain", "Invalid dataset: " + e.getMessage());
+            return;
+        } finally {
+            deleteDirectory(dataDirectory);
+        }
+
+        try {
+            SolverJob job = jobQueue.submit(problem);
+            exchange.getResponseHeaders().set("Location", "/jobs/" + job.getId());
+            send(exchange, 202, "application/json", jobJson(job));
+        } catch (RejectedExecutionException e) {
+            send(exchange, 503, "text/plain", "The job queue is full; retry later");
+        }
+    }
+
+    // Returns the names of the expected input files found; a file repeated in the zip counts once
+    private static Set<String> unzipInputFiles(InputStream body, Path dataDirectory) throws IOException {
+        Set<String> found = new HashSet<>();
+        try (ZipInputStream zip = new ZipInputStream(body)) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                // Only the file name is used, so an entry cannot write outside the directory
+                String fileName = Path.of(entry.getName()).getFileName().toString();
+                if (!entry.isDirectory() && DatasetLoader.FILE_NAMES.contains(fileName)) {
+                    Files.copy(zip, dataDirectory.resolve(fileName), StandardCopyOption.REPLACE_EXISTING);
+                    found.add(fileName);
+                }
+            }
+        }
+        return found;
+    }
+
+    private static void deleteDirectory(Path directory) {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Could not delete " + directory, e);
+        }
+    }
+
+    private SolverJob findJob(String id) {
+        try {
+            return jobQueue.getJob(Long.parseLong(id));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static String jobJson(SolverJob job) {
+        TimeTable solution = job.getBestSolution();
+        return "{\"id\":" + job.getId()
+                + ",\"status\":\"" + job.getStatus() + "\""
+                + ",\"score\":" + Json.quote(solution.getScore())
+                + ",\"submittedAt\":" + Json.quote(job.getSubmittedAt())
+                + ",\"startedAt\":" + Json.quote(job.getStartedAt())
+                + ",\"finishedAt\":" + Json.quote(job.getFinishedAt())
+                + ",\"stoppedBy\":" + Json.quote(job.getStoppedBy())
+                + ",\"error\":" + Json.quote(job.getError()) + "}";
+    }
+
+    private static String solutionJson(TimeTable solution) {
+        StringBuilder json = new StringBuilder("{\"score\":")
+                .append(Json.quote(solution.getScore()))
+                .append(",\"lessons\":[");
+        boolean first = true;
+        for (List<Lesson> lessons : List.of(solution.getLessonList(), solution.getMinorLessonList())) {
+            for (Lesson lesson : lessons) {
+                json.append(first ? "" : ",")
+                        .append("{\"id\":").append(lesson.getId())
+                        .append(",\"course\":").append(Json.quote(lesson.getCourse() != null ? lesson.getCourse().getCourseCode() : null))
+                        .append(",\"batch\":").append(Json.quote(lesson.getStudentBatch() != null ? lesson.getStudentBatch().getBatchName() : null))
+                        .append(",\"type\":").append(Json.quote(lesson.getLessonType()))
+                        .append(",\"faculty\":").append(Json.quote(lesson.getFaculty() != null ? lesson.getFaculty().getName() : null))
+                        .append(",\"room\":").append(Json.quote(lesson.getRoom() != null ? lesson.getRoom().getRoomNumber() : null))
+                        .append(",\"day\":").append(Json.quote(lesson.getTimeSlot() != null ? lesson.getTimeSlot().getDay() : null))
+                        .append(",\"start\":").append(Json.quote(lesson.getTimeSlot() != null ? lesson.getTimeSlot().getStartTime() : null))
+                        .append(",\"end\":").append(Json.quote(lesson.getTimeSlot() != null ? lesson.getTimeSlot().getEndTime() : null))
+                        .append('}');
+                first = false;
+            }
+        }
+        return json.append("]}").toString();
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType + "; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.timetable.solver;
+
+import com.timetable.domain.Lesson;
+import com.timetable.domain.TimeTable;
+import org.optaplanner.core.api.score.director.ScoreDirector;
+import org.optaplanner.core.impl.partitionedsearch.partitioner.SolutionPartitioner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Splits a TimeTable into one part per batch year, plus one part holding the minor lessons.
+ * Every year has its own slot table, so the parts are nearly independent; clashes on shared faculty
+ * and rooms are left to the repair phase that runs on the merged solution.
+ */
+public class BatchYearPartitioner implements SolutionPartitioner<TimeTable> {
+
+    private static final int MINOR_PARTITION_KEY = Integer.MAX_VALUE; // Sorts the minor part last
+
+    @Override
+    public List<TimeTable> splitWorkingSolution(ScoreDirector<TimeTable> scoreDirector, Integer runnablePartThreadLimit) {
+        TimeTable original = scoreDirector.getWorkingSolution();
+
+        // Lessons grouped by batch year, copied so each part owns its own planning entities
+        Map<Integer, List<Lesson>> lessonsByYear = new TreeMap<>();
+        for (Lesson lesson : original.getLessonList()) {
+            int year = lesson.getStudentBatch() != null ? lesson.getStudentBatch().getYear() : MINOR_PARTITION_KEY;
+            lessonsByYear.computeIfAbsent(year, key -> new ArrayList<>()).add(new Lesson(lesson));
+        }
+
+        List<Lesson> minorLessons = new ArrayList<>();
+        for (Lesson lesson : original.getMinorLessonList()) {
+            minorLessons.add(new Lesson(lesson));
+        }
+
+        List<TimeTable> parts = new ArrayList<>();
+        for (Map.Entry<Integer, List<Lesson>> entry : lessonsByYear.entrySet()) {
+            // Minor lessons travel with the part that already holds batchless lessons, if there is one
+            List<Lesson> partMinorLessons = entry.getKey() == MINOR_PARTITION_KEY ? minorLessons : new ArrayList<>();
+            parts.add(createPart(original, entry.getValue(), partMinorLessons));
+        }
+        if (!lessonsByYear.containsKey(MINOR_PARTITION_KEY) && !minorLessons.isEmpty()) {
+            parts.add(createPart(original, new ArrayList<>(), minorLessons));
+        }
+        return parts;
+    }
+
+    // Problem facts are shared with the original; only the lessons are part-specific
+    private TimeTable createPart(TimeTable original, List<Lesson> lessonList, List<Lesson> minorLessonList) {
+        TimeTable part = new TimeTable(original.getId(), lessonList, minorLessonList,
+                original.getFacultyList(), original.getRoomList(),
+                original.getTimeSlotList(), original.getMinorTimeSlotList());
+        // TimeSlotStrengthWeightFactory reads the slot clash counts from it
+        part.setTimeSlotCatalogue(original.getTimeSlotCatalogue());
+        return part;
+    }
+}
@@ -0,0 +1,60 @@
+package com.timetable.solver;
+
+import com.timetable.domain.TimeTable;
+import org.optaplanner.core.api.score.Score;
+import org.optaplanner.core.api.solver.Solver;
+import org.optaplanner.core.impl.constructionheuristic.scope.ConstructionHeuristicPhaseScope;
+import org.optaplanner.core.impl.phase.event.PhaseLifecycleListenerAdapter;
+import org.optaplanner.core.impl.phase.scope.AbstractPhaseScope;
+import org.optaplanner.core.impl.solver.DefaultSolver;
+
+import java.util.logging.Logger;
+
+/**
+ * Records how long the construction heuristic of a solver took and the score it built, so construction
+ * heuristic types can be compared on their starting point for the local search.
+ */
+public class ConstructionReport extends PhaseLifecycleListenerAdapter<TimeTable> {
+    private static final Logger logger = Logger.getLogger(ConstructionReport.class.getName());
+
+    private final String label;
+    private volatile long timeMillisSpent = -1; // Of the last construction heuristic phase, -1 until one ended
+    private volatile Score<?> score;
+    private long startingScoreCalculationCount;
+
+    private ConstructionReport(String label) {
+        this.label = label;
+    }
+
+    // Phase events are only exposed on the implementation class
+    public static ConstructionReport attach(Solver<TimeTable> solver, String label) {
+        ConstructionReport report = new ConstructionReport(label);
+        ((DefaultSolver<TimeTable>) solver).addPhaseLifecycleListener(report);
+        return report;
+    }
+
+    @Override
+    public void phaseStarted(AbstractPhaseScope<TimeTable> phaseScope) {
+        if (phaseScope instanceof ConstructionHeuristicPhaseScope) {
+            startingScoreCalculationCount = phaseScope.getSolverScope().getScoreCalculationCount();
+        }
+    }
+
+    // Listeners hear of the phase end before the phase scope records its end time and calculation count,
+    // so both are measured up to now instead
+    @Override
+    public void phaseEnded(AbstractPhaseScope<TimeTable> phaseScope) {
+        if (!(phaseScope instanceof ConstructionHeuristicPhaseScope)) {
+            return;
+        }
+        timeMillisSpent = phaseScope.calculatePhaseTimeMillisSpentUpToNow();
+        score = phaseScope.getBestScore();
+        logger.info(label + " construction took " + timeMillisSpent + " ms and reached " + score + " with "
+                + (phaseScope.getSolverScope().getScoreCalculationCount() - startingScoreCalculationCount)
+                + " score calculations");
+    }
+
+    // Getters
+    public long getTimeMillisSpent() { return timeMillisSpent; }
+    public Score<?> getScore() { return score; }
+}
@@ -0,0 +1,86 @@
+package com.timetable.solver;
+
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Faculty, rooms and time slots that are no longer available to a solved timetable, as given to --unavailable.
+ * Faculty and rooms are named by their CSV id, slots by day and start time, for example:
+ * faculty:12,room:5,slot:Monday@09:00
+ */
+public class Disruption {
+    private final Set<Long> facultyIds = new HashSet<>();
+    private final Set<Long> roomIds = new HashSet<>();
+    private final List<SlotStart> slotStarts = new ArrayList<>();
+
+    // A day and start time; every slot type starting then is closed
+    public static class SlotStart {
+        private final String day;
+        private final LocalTime startTime;
+
+        public SlotStart(String day, LocalTime startTime) {
+            this.day = day;
+            this.startTime = startTime;
+        }
+
+        public String getDay() { return day; }
+        public LocalTime getStartTime() { return startTime; }
+
+        @Override
+        public String toString() {
+            return day + "@" + startTime;
+        }
+    }
+
+    public Disruption() {}
+
+    public static Disruption parse(String value) {
+        Disruption disruption = new Disruption();
+        for (String item : value.split(",")) {
+            String trimmed = item.trim();
+            int separator = trimmed.indexOf(':');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Expected faculty:<id>, room:<id> or slot:<day>@<HH:mm>, got " + trimmed);
+            }
+            String kind = trimmed.substring(0, separator).toLowerCase();
+            String target = trimmed.substring(separator + 1).trim();
+            try {
+                switch (kind) {
+                    case "faculty":
+                        disruption.facultyIds.add(Long.parseLong(target));
+                        break;
+                    case "room":
+                        disruption.roomIds.add(Long.parseLong(target));
+                        break;
+                    case "slot":
+                        int at = target.indexOf('@');
+                        if (at < 0) {
+                            throw new IllegalArgumentException("Expected slot:<day>@<HH:mm>, got " + trimmed);
+                        }
+                        disruption.slotStarts.add(new SlotStart(target.substring(0, at).trim(),
+                                LocalTime.parse(target.substring(at + 1).trim())));
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown unavailable resource: " + trimmed);
+                }
+            } catch (NumberFormatException | DateTimeParseException e) {
+                throw new IllegalArgumentException("Invalid unavailable resource: " + trimmed, e);
+            }
+        }
+        return disruption;
+    }
+
+    public Set<Long> getFacultyIds() { return Collections.unmodifiableSet(facultyIds); }
+    public Set<Long> getRoomIds() { return Collections.unmodifiableSet(roomIds); }
+    public List<SlotStart> getSlotStarts() { return Collections.unmodifiableList(slotStarts); }
+
+    @Override
+    public String toString() {
+        return "faculty " + facultyIds + ", rooms " + roomIds + ", slots " + slotStarts;
+    }
+}
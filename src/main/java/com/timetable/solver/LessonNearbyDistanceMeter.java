@@ -0,0 +1,30 @@
+package com.timetable.solver;
+
+import com.timetable.domain.Lesson;
+import org.optaplanner.core.impl.heuristic.selector.common.nearby.NearbyDistanceMeter;
+
+/**
+ * Distance between two lessons for nearby selection: lessons of the same batch are closest, then lessons of
+ * the same faculty, then lessons in the same room. Swapping the slots of unrelated lessons rarely changes a
+ * clash, so those are only tried after the related ones.
+ */
+public class LessonNearbyDistanceMeter implements NearbyDistanceMeter<Lesson, Lesson> {
+    private static final double SAME_BATCH = 0.0;
+    private static final double SAME_FACULTY = 1.0;
+    private static final double SAME_ROOM = 2.0;
+    private static final double UNRELATED = 3.0;
+
+    @Override
+    public double getNearbyDistance(Lesson origin, Lesson destination) {
+        if (origin.getStudentBatch() != null && origin.getStudentBatch().equals(destination.getStudentBatch())) {
+            return SAME_BATCH;
+        }
+        if (origin.getFaculty() != null && origin.getFaculty().equals(destination.getFaculty())) {
+            return SAME_FACULTY;
+        }
+        if (origin.getRoom() != null && origin.getRoom().equals(destination.getRoom())) {
+            return SAME_ROOM;
+        }
+        return UNRELATED;
+    }
+}
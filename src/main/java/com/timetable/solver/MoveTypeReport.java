@@ -0,0 +1,108 @@
+package com.timetable.solver;
+
+import com.timetable.domain.TimeTable;
+import org.optaplanner.core.api.score.buildin.hardsoft.HardSoftScore;
+import org.optaplanner.core.api.solver.Solver;
+import org.optaplanner.core.impl.localsearch.scope.LocalSearchPhaseScope;
+import org.optaplanner.core.impl.localsearch.scope.LocalSearchStepScope;
+import org.optaplanner.core.impl.phase.event.PhaseLifecycleListenerAdapter;
+import org.optaplanner.core.impl.phase.scope.AbstractPhaseScope;
+import org.optaplanner.core.impl.phase.scope.AbstractStepScope;
+import org.optaplanner.core.impl.solver.DefaultSolver;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.logging.Logger;
+
+/**
+ * Logs, for every local search phase of a solver, how many moves were selected and accepted, the score
+ * calculation speed, and per move type how many steps it won and how much score those steps gained. Comparing
+ * the report of a run with --nearby-selection to one without shows which move types pay for themselves.
+ */
+public class MoveTypeReport extends PhaseLifecycleListenerAdapter<TimeTable> {
+    private static final Logger logger = Logger.getLogger(MoveTypeReport.class.getName());
+
+    private final String label;
+    private final Map<String, MoveTypeCount> moveTypeCounts = new TreeMap<>();
+    private long selectedMoveCount;
+    private long acceptedMoveCount;
+    private HardSoftScore lastStepScore;
+    private long startingTimeMillis;
+    private long startingScoreCalculationCount;
+
+    private MoveTypeReport(String label) {
+        this.label = label;
+    }
+
+    // Phase events are only exposed on the implementation class
+    public static MoveTypeReport attach(Solver<TimeTable> solver, String label) {
+        MoveTypeReport report = new MoveTypeReport(label);
+        ((DefaultSolver<TimeTable>) solver).addPhaseLifecycleListener(report);
+        return report;
+    }
+
+    @Override
+    public void phaseStarted(AbstractPhaseScope<TimeTable> phaseScope) {
+        if (!(phaseScope instanceof LocalSearchPhaseScope)) {
+            return;
+        }
+        moveTypeCounts.clear();
+        selectedMoveCount = 0;
+        acceptedMoveCount = 0;
+        lastStepScore = (HardSoftScore) phaseScope.getBestScore();
+        startingTimeMillis = System.currentTimeMillis();
+        startingScoreCalculationCount = phaseScope.getSolverScope().getScoreCalculationCount();
+    }
+
+    @Override
+    public void stepEnded(AbstractStepScope<TimeTable> stepScope) {
+        if (!(stepScope instanceof LocalSearchStepScope)) {
+            return;
+        }
+        LocalSearchStepScope<TimeTable> localSearchStepScope = (LocalSearchStepScope<TimeTable>) stepScope;
+        if (localSearchStepScope.getSelectedMoveCount() != null) {
+            selectedMoveCount += localSearchStepScope.getSelectedMoveCount();
+        }
+        if (localSearchStepScope.getAcceptedMoveCount() != null) {
+            acceptedMoveCount += localSearchStepScope.getAcceptedMoveCount();
+        }
+        HardSoftScore stepScore = (HardSoftScore) localSearchStepScope.getScore();
+        MoveTypeCount count = moveTypeCounts.computeIfAbsent(
+                localSearchStepScope.getStep().getSimpleMoveTypeDescription(), moveType -> new MoveTypeCount());
+        count.steps++;
+        if (lastStepScore != null && stepScore.compareTo(lastStepScore) > 0) {
+            count.improvingSteps++;
+            count.gain = count.gain.add(stepScore.subtract(lastStepScore));
+        }
+        lastStepScore = stepScore;
+    }
+
+    // Listeners hear of the phase end before the phase scope records its end time and calculation count,
+    // so the speed is taken from the ones recorded when the phase started
+    @Override
+    public void phaseEnded(AbstractPhaseScope<TimeTable> phaseScope) {
+        if (!(phaseScope instanceof LocalSearchPhaseScope)) {
+            return;
+        }
+        long timeMillisSpent = System.currentTimeMillis() - startingTimeMillis;
+        long scoreCalculationCount = phaseScope.getSolverScope().getScoreCalculationCount() - startingScoreCalculationCount;
+        long steps = moveTypeCounts.values().stream().mapToLong(count -> count.steps).sum();
+        StringBuilder report = new StringBuilder(String.format(
+                "%s local search selected %d moves, accepted %d (%.2f%%), %d score calculations/sec",
+                label, selectedMoveCount, acceptedMoveCount,
+                selectedMoveCount == 0 ? 0.0 : 100.0 * acceptedMoveCount / selectedMoveCount,
+                scoreCalculationCount * 1000L / Math.max(timeMillisSpent, 1)));
+        for (Map.Entry<String, MoveTypeCount> entry : moveTypeCounts.entrySet()) {
+            MoveTypeCount count = entry.getValue();
+            report.append(String.format("%n  %s: %d steps (%.1f%%), %d improving, gained %s",
+                    entry.getKey(), count.steps, 100.0 * count.steps / steps, count.improvingSteps, count.gain));
+        }
+        logger.info(report.toString());
+    }
+
+    private static class MoveTypeCount {
+        private long steps;
+        private long improvingSteps;
+        private HardSoftScore gain = HardSoftScore.ZERO;
+    }
+}
@@ -0,0 +1,232 @@
+package com.timetable.solver;
+
+import com.timetable.domain.TimeTable;
+import org.optaplanner.core.api.domain.solution.cloner.SolutionCloner;
+import org.optaplanner.core.api.score.buildin.hardsoft.HardSoftScore;
+import org.optaplanner.core.api.solver.Solver;
+import org.optaplanner.core.api.solver.SolverFactory;
+import org.optaplanner.core.config.localsearch.LocalSearchPhaseConfig;
+import org.optaplanner.core.config.localsearch.LocalSearchType;
+import org.optaplanner.core.config.localsearch.decider.acceptor.LocalSearchAcceptorConfig;
+import org.optaplanner.core.config.localsearch.decider.forager.LocalSearchForagerConfig;
+import org.optaplanner.core.config.solver.SolverConfig;
+import org.optaplanner.core.impl.solver.DefaultSolver;
+import org.optaplanner.core.impl.solver.DefaultSolverFactory;
+import org.optaplanner.core.impl.solver.scope.SolverScope;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Races several solver configurations on the same problem, each on a thread of its own, and keeps the best
+ * solution any of them finds. Every member solves its own planning clone of the problem; the problem facts are
+ * only read, so they are shared. The members differ in local search algorithm and random seed. A running
+ * solver cannot take in another's solution, so the global best is shared as the one returned, not injected.
+ *
+ * The race is run as successive halving: at evenly spaced checkpoints within the spent limit the worse half
+ * of the members still solving is terminated, so the remaining time goes to the leaders. A member that stops
+ * on the target score or the plateau of the TerminationPolicy ends the whole race.
+ */
+public class PortfolioSolver {
+    private static final Logger logger = Logger.getLogger(PortfolioSolver.class.getName());
+    // Starting temperature of simulated annealing, in the order of a few conflicts and preference penalties
+    private static final String SIMULATED_ANNEALING_STARTING_TEMPERATURE = "10hard/200soft";
+
+    private final List<Member> members = new ArrayList<>();
+    private final TerminationPolicy terminationPolicy;
+    private Member winner;
+
+    public PortfolioSolver(SolverOptions options, int size) {
+        this.terminationPolicy = options.getTerminationPolicy();
+        for (int i = 0; i < size; i++) {
+            // Cycle through the algorithms first, so the seeds only differ once each algorithm has a member
+            LocalSearchPhaseConfig localSearch = createLocalSearch(i % LocalSearchAlgorithm.values().length);
+            long seed = i / LocalSearchAlgorithm.values().length;
+            SolverConfig solverConfig = TimeTableSolverConfig.create(SolverOptions.MOVE_THREADS_NONE,
+                            options.getSpentLimit(), options.getScoreCalculator())
+                    .withTerminationConfig(terminationPolicy.toTerminationConfig())
+                    .withRandomSeed(seed)
+                    .withPhases(TimeTableSolverConfig.createConstructionHeuristicPhase(options.getConstructionHeuristic()),
+                            localSearch);
+            String name = LocalSearchAlgorithm.values()[i % LocalSearchAlgorithm.values().length] + "/seed " + seed;
+            DefaultSolverFactory<TimeTable> solverFactory =
+                    (DefaultSolverFactory<TimeTable>) SolverFactory.<TimeTable>create(solverConfig);
+            Solver<TimeTable> solver = solverFactory.buildSolver();
+            ConstructionReport.attach(solver, name);
+            members.add(new Member(name, seed, solver, solverFactory.getSolutionDescriptor().getSolutionCloner()));
+        }
+    }
+
+    private enum LocalSearchAlgorithm { LATE_ACCEPTANCE, TABU_SEARCH, SIMULATED_ANNEALING, GREAT_DELUGE, HILL_CLIMBING }
+
+    private static LocalSearchPhaseConfig createLocalSearch(int algorithm) {
+        switch (LocalSearchAlgorithm.values()[algorithm]) {
+            case TABU_SEARCH:
+                return new LocalSearchPhaseConfig().withLocalSearchType(LocalSearchType.TABU_SEARCH);
+            case SIMULATED_ANNEALING:
+                // The local search type alone leaves the starting temperature unset
+                return new LocalSearchPhaseConfig()
+                        .withAcceptorConfig(new LocalSearchAcceptorConfig()
+                                .withSimulatedAnnealingStartingTemperature(SIMULATED_ANNEALING_STARTING_TEMPERATURE))
+                        .withForagerConfig(new LocalSearchForagerConfig().withAcceptedCountLimit(4));
+            case GREAT_DELUGE:
+                return new LocalSearchPhaseConfig().withLocalSearchType(LocalSearchType.GREAT_DELUGE);
+            case HILL_CLIMBING:
+                return new LocalSearchPhaseConfig().withLocalSearchType(LocalSearchType.HILL_CLIMBING);
+            default:
+                return new LocalSearchPhaseConfig().withLocalSearchType(LocalSearchType.LATE_ACCEPTANCE);
+        }
+    }
+
+    // Blocks until every member has stopped and returns the best solution found by any of them
+    public TimeTable solve(TimeTable problem) throws InterruptedException {
+        CountDownLatch finished = new CountDownLatch(members.size());
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(members.size(), runnable -> {
+            Thread thread = new Thread(runnable, "portfolio-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        long startMillis = System.currentTimeMillis();
+        try {
+            for (Member member : members) {
+                TimeTable clone = member.cloner.cloneSolution(problem);
+                executor.execute(() -> {
+                    try {
+                        member.solve(clone);
+                        String stoppedBy = terminationPolicy.firedCondition(member.solver);
+                        if (member.stoppedBy == null) {
+                            member.stoppedBy = stoppedBy;
+                        }
+                        if (stoppedBy.equals(TerminationPolicy.REASON_TARGET_SCORE)
+                                || stoppedBy.equals(TerminationPolicy.REASON_PLATEAU)) {
+                            terminateAll("race won by " + member.name);
+                        }
+                    } catch (RuntimeException e) {
+                        member.stoppedBy = "failed: " + e;
+                        logger.log(Level.WARNING, "Portfolio member " + member.name + " failed", e);
+                    } finally {
+                        finished.countDown();
+                    }
+                });
+            }
+
+            // One checkpoint per halving, so a single member is left for the last stretch
+            int rounds = 32 - Integer.numberOfLeadingZeros(Math.max(0, members.size() - 1));
+            long spentLimitMillis = terminationPolicy.getSpentLimit().toMillis();
+            for (int round = 1; round <= rounds; round++) {
+                long checkpointMillis = startMillis + spentLimitMillis * round / (rounds + 1);
+                long waitMillis = checkpointMillis - System.currentTimeMillis();
+                if (finished.await(Math.max(0L, waitMillis), TimeUnit.MILLISECONDS)) {
+                    break;
+                }
+                eliminateWorseHalf(Duration.ofMillis(System.currentTimeMillis() - startMillis));
+            }
+            finished.await();
+        } finally {
+            terminateAll("portfolio stopped");
+            executor.shutdown();
+        }
+
+        winner = members.stream()
+                .filter(member -> member.bestScore != null)
+                .max(Comparator.comparing(member -> member.bestScore))
+                .orElseThrow(() -> new IllegalStateException("No portfolio member produced a solution"));
+        return winner.bestSolution;
+    }
+
+    private synchronized void eliminateWorseHalf(Duration timeSpent) {
+        List<Member> running = new ArrayList<>();
+        for (Member member : members) {
+            if (member.solver.isSolving() && member.stoppedBy == null) {
+                running.add(member);
+            }
+        }
+        // Members without a best solution yet rank last
+        running.sort(Comparator.comparing((Member member) -> member.bestScore,
+                Comparator.nullsFirst(Comparator.naturalOrder())).reversed());
+        for (Member member : running.subList(running.size() - running.size() / 2, running.size())) {
+            member.stoppedBy = "eliminated after " + timeSpent.toSeconds() + "s";
+            member.solver.terminateEarly();
+            logger.info("Portfolio member " + member.name + " " + member.stoppedBy + " at " + member.bestScore);
+        }
+    }
+
+    private synchronized void terminateAll(String reason) {
+        for (Member member : members) {
+            if (member.solver.terminateEarly() && member.stoppedBy == null) {
+                member.stoppedBy = reason;
+            }
+        }
+    }
+
+    // One line per member, best first
+    public void logStatistics() {
+        List<Member> ranked = new ArrayList<>(members);
+        ranked.sort(Comparator.comparing((Member member) -> member.bestScore,
+                Comparator.nullsFirst(Comparator.naturalOrder())).reversed());
+        for (Member member : ranked) {
+            logger.info(String.format("%s %-32s best %s after %ds, %d score calculations (%d/s), %s",
+                    member == winner ? "*" : " ", member.name, member.bestScore, member.bestTimeMillis / 1000,
+                    member.scoreCalculationCount, member.scoreCalculationSpeed, member.stoppedBy));
+        }
+    }
+
+    public Member getWinner() { return winner; }
+    public List<Member> getMembers() { return members; }
+
+    /**
+     * One configuration in the race and what it achieved.
+     */
+    public static class Member {
+        private final String name;
+        private final long seed;
+        private final Solver<TimeTable> solver;
+        private final SolutionCloner<TimeTable> cloner;
+        private volatile TimeTable bestSolution;
+        private volatile HardSoftScore bestScore;
+        private volatile long bestTimeMillis;       // Time spent when the best solution was found
+        private long scoreCalculationCount;
+        private long scoreCalculationSpeed;
+        private volatile String stoppedBy;          // Why the member stopped, set once
+
+        private Member(String name, long seed, Solver<TimeTable> solver, SolutionCloner<TimeTable> cloner) {
+            this.name = name;
+            this.seed = seed;
+            this.solver = solver;
+            this.cloner = cloner;
+            solver.addEventListener(event -> {
+                bestSolution = event.getNewBestSolution();
+                bestScore = (HardSoftScore) event.getNewBestScore();
+                bestTimeMillis = event.getTimeMillisSpent();
+            });
+        }
+
+        private void solve(TimeTable problem) {
+            TimeTable solution = solver.solve(problem);
+            SolverScope<TimeTable> solverScope = ((DefaultSolver<TimeTable>) solver).getSolverScope();
+            bestSolution = solution;
+            bestScore = solution.getScore();
+            scoreCalculationCount = solverScope.getScoreCalculationCount();
+            scoreCalculationSpeed = solverScope.getScoreCalculationSpeed();
+        }
+
+        // Getters
+        public String getName() { return name; }
+        public long getSeed() { return seed; }
+        public HardSoftScore getBestScore() { return bestScore; }
+        public long getBestTimeMillis() { return bestTimeMillis; }
+        public long getScoreCalculationCount() { return scoreCalculationCount; }
+        public long getScoreCalculationSpeed() { return scoreCalculationSpeed; }
+        public String getStoppedBy() { return stoppedBy; }
+    }
+}
@@ -0,0 +1,63 @@
+package com.timetable.solver;
+
+import com.timetable.util.Json;
+import org.optaplanner.core.api.score.buildin.hardsoft.HardSoftScore;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * A new best solution found by a solver, as written to the progress log and the service's event feed.
+ * The score calculation count stands in for moves evaluated, since every evaluated move is one calculation.
+ */
+public class ProgressEvent {
+    private final Instant timestamp;
+    private final long timeSpentMillis;
+    private final HardSoftScore score;
+    private final long scoreCalculationCount;
+    private final long scoreCalculationSpeed;
+    // Constraints whose score improved since the previous breakdown, with the improvement; null when the
+    // breakdown was skipped because a newer best solution was already waiting
+    private final Map<String, HardSoftScore> improvedConstraints;
+
+    public ProgressEvent(Instant timestamp, long timeSpentMillis, HardSoftScore score, long scoreCalculationCount,
+                         long scoreCalculationSpeed, Map<String, HardSoftScore> improvedConstraints) {
+        this.timestamp = timestamp;
+        this.timeSpentMillis = timeSpentMillis;
+        this.score = score;
+        this.scoreCalculationCount = scoreCalculationCount;
+        this.scoreCalculationSpeed = scoreCalculationSpeed;
+        this.improvedConstraints = improvedConstraints != null ? Collections.unmodifiableMap(improvedConstraints) : null;
+    }
+
+    public String toJson() {
+        StringBuilder json = new StringBuilder("{\"timestamp\":").append(Json.quote(timestamp))
+                .append(",\"timeSpentMillis\":").append(timeSpentMillis)
+                .append(",\"score\":").append(Json.quote(score))
+                .append(",\"initScore\":").append(score.initScore())
+                .append(",\"hardScore\":").append(score.hardScore())
+                .append(",\"softScore\":").append(score.softScore())
+                .append(",\"scoreCalculationCount\":").append(scoreCalculationCount)
+                .append(",\"scoreCalculationSpeed\":").append(scoreCalculationSpeed)
+                .append(",\"improvedConstraints\":");
+        if (improvedConstraints == null) {
+            return json.append("null}").toString();
+        }
+        json.append('{');
+        boolean first = true;
+        for (Map.Entry<String, HardSoftScore> entry : improvedConstraints.entrySet()) {
+            json.append(first ? "" : ",").append(Json.quote(entry.getKey())).append(':').append(Json.quote(entry.getValue()));
+            first = false;
+        }
+        return json.append("}}").toString();
+    }
+
+    // Getters
+    public Instant getTimestamp() { return timestamp; }
+    public long getTimeSpentMillis() { return timeSpentMillis; }
+    public HardSoftScore getScore() { return score; }
+    public long getScoreCalculationCount() { return scoreCalculationCount; }
+    public long getScoreCalculationSpeed() { return scoreCalculationSpeed; }
+    public Map<String, HardSoftScore> getImprovedConstraints() { return improvedConstraints; }
+}
@@ -0,0 +1,42 @@
+package com.timetable.solver;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * Writes ProgressEvents to a file as JSON lines, flushing each one so the file can be followed while solving,
+ * and logs a one-line summary of each.
+ */
+public class ProgressLog implements Consumer<ProgressEvent>, Closeable {
+    private static final Logger logger = Logger.getLogger(ProgressLog.class.getName());
+
+    private final BufferedWriter writer;
+
+    public ProgressLog(Path file) throws IOException {
+        this.writer = Files.newBufferedWriter(file);
+    }
+
+    @Override
+    public synchronized void accept(ProgressEvent event) {
+        logger.info(String.format("Best score %s after %d ms (%d score calculations/sec)",
+                event.getScore(), event.getTimeSpentMillis(), event.getScoreCalculationSpeed()));
+        try {
+            writer.write(event.toJson());
+            writer.newLine();
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        writer.close();
+    }
+}
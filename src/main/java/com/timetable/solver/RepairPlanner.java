@@ -0,0 +1,151 @@
+package com.timetable.solver;
+
+import com.timetable.domain.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+
+/**
+ * Prepares a solved timetable for minimal-perturbation re-planning after a disruption. Lessons that lose their
+ * faculty or room get a replacement, lessons in a closed slot lose their slot, and closed slots leave the value
+ * ranges. Only those lessons and the lessons their batches have on the same day stay movable; every other lesson
+ * is pinned.
+ * Each lesson remembers its current slot, so the solver pays for every lesson it moves away from it.
+ */
+public class RepairPlanner {
+    private static final Logger logger = Logger.getLogger(RepairPlanner.class.getName());
+
+    private RepairPlanner() {}
+
+    // Returns the number of lessons left movable
+    public static int prepare(TimeTable problem, Disruption disruption) {
+        List<Lesson> lessons = new ArrayList<>(problem.getLessonList());
+        lessons.addAll(problem.getMinorLessonList());
+
+        Set<Faculty> unavailableFaculty = new HashSet<>();
+        for (Faculty faculty : problem.getFacultyList()) {
+            if (disruption.getFacultyIds().contains(faculty.getId())) {
+                faculty.setAvailable(false);
+                unavailableFaculty.add(faculty);
+            }
+        }
+        Set<Long> closedRoomIds = disruption.getRoomIds();
+        Set<TimeSlot> closedSlots = new HashSet<>();
+        for (TimeSlot slot : problem.getTimeSlotCatalogue().getTimeSlots()) {
+            for (Disruption.SlotStart slotStart : disruption.getSlotStarts()) {
+                if (slot.getDay().equalsIgnoreCase(slotStart.getDay()) && slot.getStartTime().equals(slotStart.getStartTime())) {
+                    closedSlots.add(slot);
+                }
+            }
+        }
+
+        Set<Lesson> affectedLessons = new HashSet<>();
+        Set<String> affectedBatchDays = new HashSet<>(); // Batch id and day of each affected lesson's original slot
+        for (Lesson lesson : lessons) {
+            lesson.setOriginalTimeSlot(lesson.getTimeSlot());
+            boolean affected = lesson.getTimeSlot() == null; // Not in the timetable being repaired
+            if (lesson.getFaculty() != null && unavailableFaculty.contains(lesson.getFaculty())) {
+                Faculty replacement = replacementFaculty(lesson, unavailableFaculty);
+                if (replacement != null) {
+                    lesson.setFaculty(replacement);
+                } else {
+                    logger.warning("No available faculty can take over " + lesson);
+                }
+                affected = true;
+            }
+            if (lesson.getRoom() != null && closedRoomIds.contains(lesson.getRoom().getId())) {
+                Room replacement = replacementRoom(lesson, problem.getRoomList(), closedRoomIds);
+                if (replacement != null) {
+                    lesson.reassignRoom(replacement);
+                } else {
+                    logger.warning("No open room can take over " + lesson);
+                }
+                affected = true;
+            }
+            if (lesson.getTimeSlot() != null && closedSlots.contains(lesson.getTimeSlot())) {
+                lesson.setTimeSlot(null); // The construction heuristic places it again
+                affected = true;
+            }
+            if (affected) {
+                affectedLessons.add(lesson);
+                if (lesson.getStudentBatch() != null && lesson.getOriginalTimeSlot() != null) {
+                    affectedBatchDays.add(batchDay(lesson));
+                }
+            }
+        }
+
+        // Ranges are shared by lessons of the same batch and type, so each is filtered once
+        if (!closedSlots.isEmpty()) {
+            Map<List<TimeSlot>, List<TimeSlot>> openRanges = new IdentityHashMap<>();
+            for (Lesson lesson : lessons) {
+                if (lesson.getTimeSlotRange() != null) {
+                    lesson.setTimeSlotRange(openRanges.computeIfAbsent(lesson.getTimeSlotRange(), range -> {
+                        List<TimeSlot> open = new ArrayList<>(range);
+                        open.removeAll(closedSlots);
+                        return open;
+                    }));
+                }
+            }
+        }
+
+        int movable = 0;
+        for (Lesson lesson : lessons) {
+            boolean pinned = !affectedLessons.contains(lesson)
+                    && (lesson.getStudentBatch() == null || !affectedBatchDays.contains(batchDay(lesson)));
+            lesson.setPinned(pinned);
+            if (!pinned) {
+                movable++;
+            }
+        }
+        logger.info(String.format("Repairing %s: %d lessons affected, %d of %d lessons movable",
+                disruption, affectedLessons.size(), movable, lessons.size()));
+        return movable;
+    }
+
+    private static String batchDay(Lesson lesson) {
+        return lesson.getStudentBatch().getId() + "|" + lesson.getOriginalTimeSlot().getDayIndex();
+    }
+
+    // Another eligible faculty member, spreading the lessons of a course over them by lesson id
+    private static Faculty replacementFaculty(Lesson lesson, Set<Faculty> unavailableFaculty) {
+        List<Faculty> candidates = new ArrayList<>();
+        if (lesson.getCourse() != null && lesson.getCourse().getEligibleFaculty() != null) {
+            for (Faculty faculty : lesson.getCourse().getEligibleFaculty()) {
+                if (!unavailableFaculty.contains(faculty)) {
+                    candidates.add(faculty);
+                }
+            }
+        }
+        return candidates.isEmpty() ? null : candidates.get((int) (lesson.getId() % candidates.size()));
+    }
+
+    // A room the lesson's batch or minor may use for its type, else any open room of the same room type
+    static Room replacementRoom(Lesson lesson, List<Room> roomList, Set<Long> closedRoomIds) {
+        List<Long> allowedRoomIds;
+        if ("MINOR".equals(lesson.getLessonType()) || lesson.getStudentBatch() == null) {
+            allowedRoomIds = lesson.getCourse() != null ? lesson.getCourse().getLectureRoomIDs() : null;
+        } else if ("LAB".equals(lesson.getLessonType())) {
+            allowedRoomIds = lesson.getStudentBatch().getPracticalRoomIDs();
+        } else {
+            allowedRoomIds = lesson.getStudentBatch().getLectureRoomIDs();
+        }
+        if (allowedRoomIds != null) {
+            for (Room room : roomList) {
+                if (allowedRoomIds.contains(room.getId()) && !closedRoomIds.contains(room.getId())) {
+                    return room;
+                }
+            }
+        }
+        for (Room room : roomList) {
+            if (room.getType() == lesson.getRoom().getType() && !closedRoomIds.contains(room.getId())) {
+                return room;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,243 @@
+package com.timetable.solver;
+
+import org.optaplanner.core.api.score.buildin.hardsoft.HardSoftScore;
+import org.optaplanner.core.config.constructionheuristic.ConstructionHeuristicType;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Command-line options that shape the SolverConfig built for TimeTableApp.
+ */
+public class SolverOptions {
+    public static final String MOVE_THREADS_AUTO = "AUTO";
+    public static final String MOVE_THREADS_NONE = "NONE";
+    public static final String SCORE_CALCULATOR_STREAMS = "STREAMS";
+    public static final String SCORE_CALCULATOR_INCREMENTAL = "INCREMENTAL";
+
+    private String moveThreadCount = MOVE_THREADS_AUTO;   // AUTO, NONE or an explicit thread count
+    private Duration spentLimit = Duration.ofMinutes(15); // Wall-clock budget for a normal solve
+    private Duration plateau;                             // Stop once feasible and unimproved this long
+    private HardSoftScore targetScore;                    // Stop once the best score reaches it
+    private boolean threadReport;                         // Run the per-thread-count speed report instead of solving
+    private boolean partitioned;                          // Solve each batch year as its own part before repairing the merge
+    private Duration reportSpentLimit = Duration.ofSeconds(30); // Budget for each run of the speed report
+    private String scoreCalculator = SCORE_CALCULATOR_STREAMS; // STREAMS or INCREMENTAL
+    private ConstructionHeuristicType constructionHeuristic = ConstructionHeuristicType.FIRST_FIT_DECREASING;
+    private boolean nearbySelection;                      // Prefer swaps between lessons sharing a batch, faculty or room
+    private Path snapshotFile;                            // Binary problem snapshot to reuse while the CSVs are unchanged
+    private Path warmStartFile;                           // Exported timetable whose time slots seed the lessons
+    private Disruption disruption;                        // Unavailable resources to repair the warm-started timetable around
+    private boolean session;                              // Keep solving and apply changes read from standard input
+    private boolean serve;                                // Run the local HTTP solving service instead of solving once
+    private int port = 8080;                              // Port of the service, on the loopback address
+    private int workers = 1;                              // Jobs the service solves at the same time
+    private int queueCapacity = 8;                        // Jobs the service holds while every worker is busy
+    private Path progressLogFile;                         // JSON lines file receiving every new best score
+    private int portfolioSize;                            // Solvers raced against each other; 0 for a single solver
+
+    public SolverOptions() {}
+
+    // Parses arguments of the form --name=value; unknown arguments are rejected
+    public static SolverOptions parse(String[] args) {
+        SolverOptions options = new SolverOptions();
+        for (String arg : args) {
+            String name = arg;
+            String value = null;
+            int separator = arg.indexOf('=');
+            if (separator >= 0) {
+                name = arg.substring(0, separator);
+                value = arg.substring(separator + 1).trim();
+            }
+
+            switch (name) {
+                case "--move-threads":
+                    options.setMoveThreadCount(requireValue(name, value));
+                    break;
+                case "--spent-limit-minutes":
+                    options.setSpentLimit(Duration.ofMinutes(parsePositive(name, requireValue(name, value))));
+                    break;
+                case "--plateau-seconds":
+                    options.setPlateau(Duration.ofSeconds(parsePositive(name, requireValue(name, value))));
+                    break;
+                case "--target-score":
+                    options.setTargetScore(parseScore(name, requireValue(name, value)));
+                    break;
+                case "--thread-report":
+                    options.setThreadReport(true);
+                    break;
+                case "--partitioned":
+                    options.setPartitioned(true);
+                    break;
+                case "--report-seconds":
+                    options.setReportSpentLimit(Duration.ofSeconds(parsePositive(name, requireValue(name, value))));
+                    break;
+                case "--score-calculator":
+                    options.setScoreCalculator(parseScoreCalculator(name, requireValue(name, value)));
+                    break;
+                case "--construction":
+                    options.setConstructionHeuristic(parseConstructionHeuristic(name, requireValue(name, value)));
+                    break;
+                case "--nearby-selection":
+                    options.setNearbySelection(true);
+                    break;
+                case "--snapshot":
+                    options.setSnapshotFile(Paths.get(requireValue(name, value)));
+                    break;
+                case "--warm-start":
+                    options.setWarmStartFile(Paths.get(requireValue(name, value)));
+                    break;
+                case "--unavailable":
+                    options.setDisruption(Disruption.parse(requireValue(name, value)));
+                    break;
+                case "--session":
+                    options.setSession(true);
+                    break;
+                case "--serve":
+                    options.setServe(true);
+                    break;
+                case "--port":
+                    options.setPort(parsePositive(name, requireValue(name, value)));
+                    break;
+                case "--workers":
+                    options.setWorkers(parsePositive(name, requireValue(name, value)));
+                    break;
+                case "--progress-log":
+                    options.setProgressLogFile(Paths.get(requireValue(name, value)));
+                    break;
+                case "--portfolio":
+                    options.setPortfolioSize(parsePositive(name, requireValue(name, value)));
+                    break;
+                case "--queue-capacity":
+                    options.setQueueCapacity(parsePositive(name, requireValue(name, value)));
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown argument: " + arg);
+            }
+        }
+        if (options.getDisruption() != null && options.getWarmStartFile() == null) {
+            throw new IllegalArgumentException("--unavailable needs --warm-start with the timetable to repair");
+        }
+        if (options.getPortfolioSize() > 0 && (options.isSession() || options.isServe() || options.isPartitioned()
+                || options.getProgressLogFile() != null)) {
+            throw new IllegalArgumentException(
+                    "--portfolio cannot be combined with --session, --serve, --partitioned or --progress-log");
+        }
+        return options;
+    }
+
+    // The spent limit stays the backstop of the plateau and target score conditions
+    public TerminationPolicy getTerminationPolicy() {
+        return new TerminationPolicy(spentLimit, plateau, targetScore);
+    }
+
+    // Turns the requested move-thread mode into the value expected by SolverConfig.withMoveThreadCount.
+    // The service's workers solve at the same time, so AUTO splits the cores between them
+    public String resolveMoveThreadCount() {
+        if (MOVE_THREADS_NONE.equalsIgnoreCase(moveThreadCount)) {
+            return MOVE_THREADS_NONE;
+        }
+        int threadCount = MOVE_THREADS_AUTO.equalsIgnoreCase(moveThreadCount)
+                ? autoMoveThreadCount() / (serve ? workers : 1)
+                : parsePositive("--move-threads", moveThreadCount);
+        return threadCount <= 1 ? MOVE_THREADS_NONE : String.valueOf(threadCount);
+    }
+
+    // Leaves two cores for the solver thread and the garbage collector, unlike OptaPlanner's own AUTO which caps at 4
+    public static int autoMoveThreadCount() {
+        return Math.max(1, Runtime.getRuntime().availableProcessors() - 2);
+    }
+
+    private static String requireValue(String name, String value) {
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException("Missing value for " + name);
+        }
+        return value;
+    }
+
+    private static String parseScoreCalculator(String name, String value) {
+        if (SCORE_CALCULATOR_STREAMS.equalsIgnoreCase(value)) {
+            return SCORE_CALCULATOR_STREAMS;
+        }
+        if (SCORE_CALCULATOR_INCREMENTAL.equalsIgnoreCase(value)) {
+            return SCORE_CALCULATOR_INCREMENTAL;
+        }
+        throw new IllegalArgumentException(name + " must be STREAMS or INCREMENTAL, got " + value);
+    }
+
+    private static ConstructionHeuristicType parseConstructionHeuristic(String name, String value) {
+        try {
+            return ConstructionHeuristicType.valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(name + " must be one of " + Arrays.toString(ConstructionHeuristicType.values())
+                    + ", got " + value, e);
+        }
+    }
+
+    private static HardSoftScore parseScore(String name, String value) {
+        try {
+            return HardSoftScore.parseScore(value);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException(name + " must look like 0hard/-50000soft, got " + value, e);
+        }
+    }
+
+    private static int parsePositive(String name, String value) {
+        try {
+            int parsed = Integer.parseInt(value.trim());
+            if (parsed <= 0) {
+                throw new IllegalArgumentException(name + " must be positive, got " + value);
+            }
+            return parsed;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number for " + name + ": " + value, e);
+        }
+    }
+
+    // Getters and Setters
+    public String getMoveThreadCount() { return moveThreadCount; }
+    public void setMoveThreadCount(String moveThreadCount) { this.moveThreadCount = moveThreadCount; }
+    public Duration getSpentLimit() { return spentLimit; }
+    public void setSpentLimit(Duration spentLimit) { this.spentLimit = spentLimit; }
+    public Duration getPlateau() { return plateau; }
+    public void setPlateau(Duration plateau) { this.plateau = plateau; }
+    public HardSoftScore getTargetScore() { return targetScore; }
+    public void setTargetScore(HardSoftScore targetScore) { this.targetScore = targetScore; }
+    public boolean isThreadReport() { return threadReport; }
+    public void setThreadReport(boolean threadReport) { this.threadReport = threadReport; }
+    public boolean isPartitioned() { return partitioned; }
+    public void setPartitioned(boolean partitioned) { this.partitioned = partitioned; }
+    public Duration getReportSpentLimit() { return reportSpentLimit; }
+    public void setReportSpentLimit(Duration reportSpentLimit) { this.reportSpentLimit = reportSpentLimit; }
+    public String getScoreCalculator() { return scoreCalculator; }
+    public void setScoreCalculator(String scoreCalculator) { this.scoreCalculator = scoreCalculator; }
+    public ConstructionHeuristicType getConstructionHeuristic() { return constructionHeuristic; }
+    public void setConstructionHeuristic(ConstructionHeuristicType constructionHeuristic) {
+        this.constructionHeuristic = constructionHeuristic;
+    }
+    public boolean isNearbySelection() { return nearbySelection; }
+    public void setNearbySelection(boolean nearbySelection) { this.nearbySelection = nearbySelection; }
+    public Path getSnapshotFile() { return snapshotFile; }
+    public void setSnapshotFile(Path snapshotFile) { this.snapshotFile = snapshotFile; }
+    public Path getWarmStartFile() { return warmStartFile; }
+    public void setWarmStartFile(Path warmStartFile) { this.warmStartFile = warmStartFile; }
+    public Disruption getDisruption() { return disruption; }
+    public void setDisruption(Disruption disruption) { this.disruption = disruption; }
+    public boolean isSession() { return session; }
+    public void setSession(boolean session) { this.session = session; }
+    public boolean isServe() { return serve; }
+    public void setServe(boolean serve) { this.serve = serve; }
+    public int getPort() { return port; }
+    public void setPort(int port) { this.port = port; }
+    public int getWorkers() { return workers; }
+    public void setWorkers(int workers) { this.workers = workers; }
+    public int getQueueCapacity() { return queueCapacity; }
+    public void setQueueCapacity(int queueCapacity) { this.queueCapacity = queueCapacity; }
+    public Path getProgressLogFile() { return progressLogFile; }
+    public void setProgressLogFile(Path progressLogFile) { this.progressLogFile = progressLogFile; }
+    public int getPortfolioSize() { return portfolioSize; }
+    public void setPortfolioSize(int portfolioSize) { this.portfolioSize = portfolioSize; }
+}
@@ -0,0 +1,125 @@
+package com.timetable.solver;
+
+import com.timetable.domain.TimeTable;
+import org.optaplanner.core.api.score.buildin.hardsoft.HardSoftScore;
+import org.optaplanner.core.api.score.constraint.ConstraintMatchTotal;
+import org.optaplanner.core.api.solver.SolutionManager;
+import org.optaplanner.core.api.solver.SolutionUpdatePolicy;
+import org.optaplanner.core.api.solver.Solver;
+import org.optaplanner.core.api.solver.SolverFactory;
+import org.optaplanner.core.config.solver.SolverConfig;
+import org.optaplanner.core.impl.solver.DefaultSolver;
+import org.optaplanner.core.impl.solver.scope.SolverScope;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Turns the best solution events of a solver into ProgressEvents. The solver thread only records the score and
+ * counters; the per-constraint breakdown, a full score calculation with constraint matches, runs on a thread of
+ * its own and is skipped for a best solution that a newer one has already replaced, so a burst of improvements
+ * never slows the solver down.
+ */
+public class SolverProgressMonitor implements AutoCloseable {
+    private static final Logger logger = Logger.getLogger(SolverProgressMonitor.class.getName());
+
+    private final SolutionManager<TimeTable, HardSoftScore> solutionManager;
+    private final Consumer<ProgressEvent> listener;
+    private final ExecutorService breakdownExecutor;
+    private final AtomicInteger pendingEvents = new AtomicInteger();
+    private Map<String, HardSoftScore> previousBreakdown; // Only used on the breakdown thread
+
+    public SolverProgressMonitor(Solver<TimeTable> solver, SolutionManager<TimeTable, HardSoftScore> solutionManager,
+                                 Consumer<ProgressEvent> listener) {
+        this.solutionManager = solutionManager;
+        this.listener = listener;
+        this.breakdownExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "solver-progress");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Score calculation counts are only exposed on the implementation class
+        SolverScope<TimeTable> solverScope = ((DefaultSolver<TimeTable>) solver).getSolverScope();
+        solver.addEventListener(event -> {
+            Instant timestamp = Instant.now();
+            HardSoftScore score = (HardSoftScore) event.getNewBestScore();
+            long count = solverScope.getScoreCalculationCount();
+            // SolverScope.getScoreCalculationSpeed() needs the ending time, which is only set once solving ends
+            long speed = count * 1000L / Math.max(1L, event.getTimeMillisSpent());
+            TimeTable bestSolution = event.getNewBestSolution();
+            pendingEvents.incrementAndGet();
+            breakdownExecutor.execute(() -> {
+                boolean latest = pendingEvents.decrementAndGet() == 0;
+                Map<String, HardSoftScore> improved = latest ? improvedConstraints(bestSolution) : null;
+                listener.accept(new ProgressEvent(timestamp, event.getTimeMillisSpent(), score, count, speed, improved));
+            });
+        });
+    }
+
+    // Constraint matches need the constraint streams; the incremental calculator only yields the total score,
+    // so a solver configured with it gets a streams-based manager of its own
+    public static SolutionManager<TimeTable, HardSoftScore> createSolutionManager(SolverConfig solverConfig,
+                                                                                 SolverFactory<TimeTable> solverFactory) {
+        if (solverConfig.getScoreDirectorFactoryConfig().getIncrementalScoreCalculatorClass() != null) {
+            solverFactory = SolverFactory.create(TimeTableSolverConfig.create(SolverOptions.MOVE_THREADS_NONE,
+                    Duration.ofSeconds(1), SolverOptions.SCORE_CALCULATOR_STREAMS));
+        }
+        return SolutionManager.create(solverFactory);
+    }
+
+    private Map<String, HardSoftScore> improvedConstraints(TimeTable bestSolution) {
+        Map<String, HardSoftScore> breakdown = new HashMap<>();
+        try {
+            // NO_UPDATE leaves the best solution, which other threads may be reading, untouched
+            for (ConstraintMatchTotal<HardSoftScore> total : solutionManager
+                    .explain(bestSolution, SolutionUpdatePolicy.NO_UPDATE).getConstraintMatchTotalMap().values()) {
+                breakdown.put(total.getConstraintName(), total.getScore());
+            }
+        } catch (RuntimeException e) {
+            logger.log(Level.WARNING, "Could not break the best score down by constraint", e);
+            return null;
+        }
+
+        Map<String, HardSoftScore> improved = new LinkedHashMap<>();
+        Map<String, HardSoftScore> previous = previousBreakdown;
+        previousBreakdown = breakdown;
+        if (previous == null) {
+            return improved; // The first breakdown has nothing to compare with
+        }
+        Set<String> constraintNames = new LinkedHashSet<>(breakdown.keySet());
+        constraintNames.addAll(previous.keySet());
+        for (String constraintName : constraintNames) {
+            HardSoftScore change = breakdown.getOrDefault(constraintName, HardSoftScore.ZERO)
+                    .subtract(previous.getOrDefault(constraintName, HardSoftScore.ZERO));
+            if (change.compareTo(HardSoftScore.ZERO) > 0) {
+                improved.put(constraintName, change);
+            }
+        }
+        return improved;
+    }
+
+    // Delivers the events already queued before returning, so the last best score is never lost
+    @Override
+    public void close() {
+        breakdownExecutor.shutdown();
+        try {
+            if (!breakdownExecutor.awaitTermination(1, TimeUnit.MINUTES)) {
+                logger.warning("Gave up waiting for the last progress events");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.timetable.solver;
+
+import com.timetable.domain.TimeTable;
+import org.optaplanner.core.api.solver.Solver;
+import org.optaplanner.core.api.solver.SolverFactory;
+import org.optaplanner.core.api.solver.change.ProblemChange;
+import org.optaplanner.core.config.solver.SolverConfig;
+import org.optaplanner.core.impl.phase.event.PhaseLifecycleListenerAdapter;
+import org.optaplanner.core.impl.solver.DefaultSolver;
+import org.optaplanner.core.impl.solver.scope.SolverScope;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * A solver that keeps running in the background and accepts corrections while it solves. It runs in daemon
+ * mode: when the termination fires it keeps the best solution and waits for the next change instead of
+ * returning, and each change restarts the phases with a fresh budget from the solution found so far.
+ */
+public class SolverSession implements AutoCloseable {
+    private static final Logger logger = Logger.getLogger(SolverSession.class.getName());
+    private static final long START_POLL_MILLIS = 100;
+
+    private final Solver<TimeTable> solver;
+    private final ExecutorService executor;
+    private volatile TimeTable bestSolution;
+    private volatile Future<TimeTable> solving; // Read by submit without the lock that start and stop hold
+    private volatile CountDownLatch started; // Released once solve() can no longer clear a terminateEarly
+
+    public SolverSession(SolverConfig solverConfig) {
+        this.solver = SolverFactory.<TimeTable>create(solverConfig.copyConfig().withDaemon(true)).buildSolver();
+        this.solver.addEventListener(event -> {
+            bestSolution = event.getNewBestSolution();
+            logger.fine("New best score: " + bestSolution.getScore());
+        });
+        // Phase events are only exposed on the implementation class
+        ((DefaultSolver<TimeTable>) solver).addPhaseLifecycleListener(new PhaseLifecycleListenerAdapter<>() {
+            @Override
+            public void solvingStarted(SolverScope<TimeTable> solverScope) {
+                started.countDown();
+            }
+        });
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "solver-session");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public synchronized void start(TimeTable problem) {
+        if (solving != null) {
+            throw new IllegalStateException("The session is already solving");
+        }
+        bestSolution = problem;
+        started = new CountDownLatch(1);
+        solving = executor.submit(() -> solver.solve(problem));
+    }
+
+    // Queues the change; the solver applies it between moves. A change that does not fit the working
+    // solution is logged and skipped rather than ending the solve
+    public void submit(ProblemChange<TimeTable> change) {
+        if (solving == null) {
+            throw new IllegalStateException("The session has not started");
+        }
+        solver.addProblemChange((workingSolution, director) -> {
+            try {
+                change.doChange(workingSolution, director);
+            } catch (IllegalArgumentException e) {
+                logger.warning("Skipped change: " + e.getMessage());
+            }
+        });
+    }
+
+    public TimeTable getBestSolution() { return bestSolution; }
+
+    public boolean isEveryChangeProcessed() { return solver.isEveryProblemChangeProcessed(); }
+
+    // Ends the session and returns the best solution, including every change processed so far
+    public synchronized TimeTable stop() throws InterruptedException, ExecutionException {
+        if (solving == null) {
+            return bestSolution;
+        }
+        // solve() clears a terminateEarly that comes before it has started, so wait for the start, unless
+        // the solve fails before getting there
+        while (!started.await(START_POLL_MILLIS, TimeUnit.MILLISECONDS) && !solving.isDone()) {
+            logger.fine("Waiting for the solver to start before stopping it");
+        }
+        solver.terminateEarly();
+        TimeTable solution = solving.get();
+        solving = null;
+        return solution;
+    }
+
+    @Override
+    public void close() {
+        solver.terminateEarly();
+        executor.shutdownNow();
+    }
+}
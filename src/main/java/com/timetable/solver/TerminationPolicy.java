@@ -0,0 +1,87 @@
+package com.timetable.solver;
+
+import com.timetable.domain.TimeTable;
+import org.optaplanner.core.api.score.buildin.hardsoft.HardSoftScore;
+import org.optaplanner.core.api.solver.Solver;
+import org.optaplanner.core.config.solver.termination.TerminationCompositionStyle;
+import org.optaplanner.core.config.solver.termination.TerminationConfig;
+import org.optaplanner.core.impl.solver.DefaultSolver;
+import org.optaplanner.core.impl.solver.scope.SolverScope;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * When a solve stops: once the best score reaches the target, once a feasible best solution has not improved
+ * for the plateau, or at the spent limit, whichever comes first. Without a plateau or a target only the spent
+ * limit applies. Once the best solution is feasible every improvement is a soft one, so an unimproved spent
+ * limit combined with feasibility is a soft score plateau.
+ */
+public class TerminationPolicy {
+    public static final String REASON_TARGET_SCORE = "target score";
+    public static final String REASON_PLATEAU = "soft score plateau";
+    public static final String REASON_SPENT_LIMIT = "spent limit";
+    public static final String REASON_TERMINATED_EARLY = "terminated early";
+
+    private final Duration spentLimit;
+    private final Duration plateau;          // Null when feasibility alone never stops the solve
+    private final HardSoftScore targetScore; // Null when no score is good enough to stop at
+
+    public TerminationPolicy(Duration spentLimit, Duration plateau, HardSoftScore targetScore) {
+        this.spentLimit = spentLimit;
+        this.plateau = plateau;
+        this.targetScore = targetScore;
+    }
+
+    // The conditions are ORed; the plateau is itself feasibility ANDed with the unimproved spent limit
+    public TerminationConfig toTerminationConfig() {
+        List<TerminationConfig> conditions = new ArrayList<>();
+        conditions.add(new TerminationConfig().withSpentLimit(spentLimit));
+        if (plateau != null) {
+            conditions.add(new TerminationConfig()
+                    .withTerminationCompositionStyle(TerminationCompositionStyle.AND)
+                    .withBestScoreFeasible(true)
+                    .withUnimprovedSpentLimit(plateau));
+        }
+        if (targetScore != null) {
+            conditions.add(new TerminationConfig().withBestScoreLimit(targetScore.toString()));
+        }
+        if (conditions.size() == 1) {
+            return conditions.get(0);
+        }
+        return new TerminationConfig()
+                .withTerminationCompositionStyle(TerminationCompositionStyle.OR)
+                .withTerminationConfigList(conditions);
+    }
+
+    // Which condition stopped a solve that has returned, worked out from its best solution and timings
+    // since OptaPlanner does not record it
+    public String firedCondition(Solver<TimeTable> solver) {
+        SolverScope<TimeTable> solverScope = ((DefaultSolver<TimeTable>) solver).getSolverScope();
+        HardSoftScore bestScore = (HardSoftScore) solverScope.getBestScore();
+        long timeSpentMillis = solverScope.getTimeMillisSpent();
+        if (bestScore != null && bestScore.isSolutionInitialized()) {
+            if (targetScore != null && bestScore.compareTo(targetScore) >= 0) {
+                return REASON_TARGET_SCORE;
+            }
+            if (plateau != null && bestScore.isFeasible()
+                    && timeSpentMillis - solverScope.getBestSolutionTimeMillisSpent() >= plateau.toMillis()) {
+                return REASON_PLATEAU;
+            }
+        }
+        return timeSpentMillis >= spentLimit.toMillis() ? REASON_SPENT_LIMIT : REASON_TERMINATED_EARLY;
+    }
+
+    @Override
+    public String toString() {
+        return "spent limit " + spentLimit
+                + (plateau != null ? ", feasible plateau " + plateau : "")
+                + (targetScore != null ? ", target score " + targetScore : "");
+    }
+
+    // Getters
+    public Duration getSpentLimit() { return spentLimit; }
+    public Duration getPlateau() { return plateau; }
+    public HardSoftScore getTargetScore() { return targetScore; }
+}
@@ -0,0 +1,74 @@
+package com.timetable.solver;
+
+import com.timetable.domain.TimeTable;
+import org.optaplanner.core.api.solver.Solver;
+import org.optaplanner.core.api.solver.SolverFactory;
+import org.optaplanner.core.impl.solver.DefaultSolver;
+import org.optaplanner.core.impl.solver.scope.SolverScope;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * Solves the same problem once per move-thread count and reports the score calculation speed of each run,
+ * so the best --move-threads value for a machine can be read off a single table.
+ */
+public class ThreadScalingReport {
+    private static final Logger logger = Logger.getLogger(ThreadScalingReport.class.getName());
+
+    private ThreadScalingReport() {}
+
+    public static void run(Supplier<TimeTable> problemSupplier, SolverOptions options) {
+        List<String> threadCounts = threadCountsToMeasure();
+        List<long[]> speeds = new ArrayList<>();
+        List<String> scores = new ArrayList<>();
+
+        for (String threadCount : threadCounts) {
+            logger.info("Measuring score calculation speed with move thread count " + threadCount);
+            SolverFactory<TimeTable> solverFactory = SolverFactory.create(
+                    TimeTableSolverConfig.create(threadCount, options.getReportSpentLimit(), options.getScoreCalculator()));
+            Solver<TimeTable> solver = solverFactory.buildSolver();
+            TimeTable solution = solver.solve(problemSupplier.get());
+
+            // Score calculation counts are only exposed on the implementation class
+            SolverScope<TimeTable> solverScope = ((DefaultSolver<TimeTable>) solver).getSolverScope();
+            speeds.add(new long[] {solverScope.getScoreCalculationCount(), solverScope.getScoreCalculationSpeed()});
+            scores.add(String.valueOf(solution.getScore()));
+        }
+
+        printReport(threadCounts, speeds, scores);
+    }
+
+    // NONE, then powers of two up to the auto-sized count, always ending with the auto-sized count itself
+    private static List<String> threadCountsToMeasure() {
+        List<String> threadCounts = new ArrayList<>();
+        threadCounts.add(SolverOptions.MOVE_THREADS_NONE);
+        int autoCount = SolverOptions.autoMoveThreadCount();
+        for (int count = 2; count < autoCount; count *= 2) {
+            threadCounts.add(String.valueOf(count));
+        }
+        if (autoCount > 1) {
+            threadCounts.add(String.valueOf(autoCount));
+        }
+        return threadCounts;
+    }
+
+    private static void printReport(List<String> threadCounts, List<long[]> speeds, List<String> scores) {
+        String rowFormat = "| %-12s | %-18s | %-16s | %-8s | %-28s |%n";
+        String lineFormat = "+--------------+--------------------+------------------+----------+------------------------------+%n";
+        long baseline = speeds.get(0)[1];
+
+        System.out.println("\nScore calculation speed per move thread count");
+        System.out.format(lineFormat);
+        System.out.format(rowFormat, "Move threads", "Score calculations", "Speed (per sec)", "Speedup", "Best score");
+        System.out.format(lineFormat);
+        for (int i = 0; i < threadCounts.size(); i++) {
+            long[] speed = speeds.get(i);
+            String speedup = baseline > 0 ? String.format("%.2fx", (double) speed[1] / baseline) : "n/a";
+            System.out.format(rowFormat, threadCounts.get(i), speed[0], speed[1], speedup, scores.get(i));
+        }
+        System.out.format(lineFormat);
+    }
+}
@@ -0,0 +1,287 @@
+package com.timetable.solver;
+
+import com.timetable.domain.*;
+import org.optaplanner.core.api.solver.change.ProblemChange;
+import org.optaplanner.core.api.solver.change.ProblemChangeDirector;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.logging.Logger;
+
+/**
+ * Corrections that can be applied to a running SolverSession. Each one finds its objects by CSV id in the
+ * solver's working solution and reports every change through the ProblemChangeDirector, so the score
+ * director stays in step. Courses and faculty are not fact collections of the solution and cannot be looked
+ * up, so a change to one is reported as a change to each lesson referencing it.
+ * As a command line: add-lesson <courseId> <batchId> <LECTURE|LAB>, remove-lesson <lessonId>,
+ * course-hours <courseId> <lecture> <theory> <practical>, close-room <roomId>, faculty-max-hours <facultyId> <hours>
+ */
+public class TimeTableChanges {
+    private static final Logger logger = Logger.getLogger(TimeTableChanges.class.getName());
+
+    private TimeTableChanges() {}
+
+    public static ProblemChange<TimeTable> parse(String command) {
+        String[] words = command.trim().split("\\s+");
+        try {
+            switch (words[0]) {
+                case "add-lesson":
+                    requireArguments(words, 3);
+                    return addLesson(Long.parseLong(words[1]), Long.parseLong(words[2]), words[3].toUpperCase());
+                case "remove-lesson":
+                    requireArguments(words, 1);
+                    return removeLesson(Long.parseLong(words[1]));
+                case "course-hours":
+                    requireArguments(words, 4);
+                    return changeCourseHours(Long.parseLong(words[1]), Integer.parseInt(words[2]),
+                            Integer.parseInt(words[3]), Integer.parseInt(words[4]));
+                case "close-room":
+                    requireArguments(words, 1);
+                    return closeRoom(Long.parseLong(words[1]));
+                case "faculty-max-hours":
+                    requireArguments(words, 2);
+                    return changeFacultyMaxHours(Long.parseLong(words[1]), Integer.parseInt(words[2]));
+                default:
+                    throw new IllegalArgumentException("Unknown change: " + words[0]);
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number in change: " + command, e);
+        }
+    }
+
+    // A lecture or lab of a course the batch takes, taught and housed like the batch's other lessons of that type
+    public static ProblemChange<TimeTable> addLesson(long courseId, long batchId, String lessonType) {
+        if (!"LECTURE".equals(lessonType) && !"LAB".equals(lessonType)) {
+            throw new IllegalArgumentException("Lesson type must be LECTURE or LAB, got " + lessonType);
+        }
+        return (workingSolution, director) -> {
+            StudentBatch batch = findBatch(workingSolution, batchId);
+            Course course = batch.getCourses().stream()
+                    .filter(candidate -> candidate.getId() == courseId)
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException(
+                            "Batch " + batch.getBatchName() + " does not take course " + courseId));
+            addLessons(workingSolution, director, course, batch, lessonType, 1);
+        };
+    }
+
+    public static ProblemChange<TimeTable> removeLesson(long lessonId) {
+        return (workingSolution, director) -> {
+            for (List<Lesson> lessons : List.of(workingSolution.getLessonList(), workingSolution.getMinorLessonList())) {
+                for (Lesson lesson : lessons) {
+                    if (lesson.getId() == lessonId) {
+                        director.removeEntity(lesson, lessons::remove);
+                        logger.info("Removed " + lesson);
+                        return;
+                    }
+                }
+            }
+            throw new IllegalArgumentException("No lesson with id " + lessonId);
+        };
+    }
+
+    // Updates the course and adds or removes lessons in every batch taking it, the way the problem was built:
+    // one LECTURE lesson per lecture and theory hour, one LAB lesson per two practical hours
+    public static ProblemChange<TimeTable> changeCourseHours(long courseId, int lectureHours, int theoryHours,
+                                                             int practicalHours) {
+        if (lectureHours < 0 || theoryHours < 0 || practicalHours < 0) {
+            throw new IllegalArgumentException("Course hours cannot be negative");
+        }
+        return (workingSolution, director) -> {
+            Course course = null;
+            Set<StudentBatch> batches = new LinkedHashSet<>();
+            for (StudentBatch batch : batches(workingSolution)) {
+                for (Course candidate : batch.getCourses()) {
+                    if (candidate.getId() == courseId) {
+                        course = candidate;
+                        batches.add(batch);
+                    }
+                }
+            }
+            if (course == null) {
+                throw new IllegalArgumentException("No batch takes course " + courseId);
+            }
+            // Every batch gaining lessons needs one of the same type to copy from; check them all before changing anything
+            for (StudentBatch batch : batches) {
+                requireTemplate(workingSolution, course, batch, "LECTURE", lectureHours + theoryHours);
+                requireTemplate(workingSolution, course, batch, "LAB", (practicalHours + 1) / 2);
+            }
+            Course changed = course;
+            changeLessons(workingSolution, director, lesson -> lesson.getCourse() == changed, () -> {
+                changed.setLectureHours(lectureHours);
+                changed.setTheoryHours(theoryHours);
+                changed.setPracticalHours(practicalHours);
+            });
+            for (StudentBatch batch : batches) {
+                resizeLessons(workingSolution, director, course, batch, "LECTURE", lectureHours + theoryHours);
+                resizeLessons(workingSolution, director, course, batch, "LAB", (practicalHours + 1) / 2);
+            }
+        };
+    }
+
+    // Moves every lesson out of the room; the room stays in the problem so exported timetables still resolve it
+    public static ProblemChange<TimeTable> closeRoom(long roomId) {
+        return (workingSolution, director) -> {
+            Set<Long> closedRoomIds = Set.of(roomId);
+            int moved = 0;
+            for (List<Lesson> lessons : List.of(workingSolution.getLessonList(), workingSolution.getMinorLessonList())) {
+                for (Lesson lesson : lessons) {
+                    if (lesson.getRoom() == null || lesson.getRoom().getId() != roomId) {
+                        continue;
+                    }
+                    Room replacement = RepairPlanner.replacementRoom(lesson, workingSolution.getRoomList(), closedRoomIds);
+                    if (replacement == null) {
+                        logger.warning("No open room can take over " + lesson);
+                        continue;
+                    }
+                    director.changeProblemProperty(lesson, changed -> changed.reassignRoom(replacement));
+                    moved++;
+                }
+            }
+            logger.info(String.format("Closed room %d: moved %d lessons", roomId, moved));
+        };
+    }
+
+    public static ProblemChange<TimeTable> changeFacultyMaxHours(long facultyId, int maxHoursPerDay) {
+        if (maxHoursPerDay <= 0) {
+            throw new IllegalArgumentException("Maximum hours per day must be positive, got " + maxHoursPerDay);
+        }
+        return (workingSolution, director) -> {
+            Faculty faculty = workingSolution.getFacultyList().stream()
+                    .filter(candidate -> candidate.getId() == facultyId)
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("No faculty with id " + facultyId));
+            changeLessons(workingSolution, director, lesson -> lesson.getFaculty() == faculty,
+                    () -> faculty.setMaxHoursPerDay(maxHoursPerDay));
+        };
+    }
+
+    // Applies a change to a shared fact and reports it as a property change of every lesson referencing it
+    private static void changeLessons(TimeTable workingSolution, ProblemChangeDirector director,
+                                      Predicate<Lesson> affected, Runnable change) {
+        List<Lesson> lessons = new ArrayList<>();
+        for (List<Lesson> lessonList : List.of(workingSolution.getLessonList(), workingSolution.getMinorLessonList())) {
+            for (Lesson lesson : lessonList) {
+                if (affected.test(lesson)) {
+                    lessons.add(lesson);
+                }
+            }
+        }
+        if (lessons.isEmpty()) {
+            change.run();
+            return;
+        }
+        // Both score directors re-read a lesson after its notification, so the fact changes with the first one
+        director.changeProblemProperty(lessons.get(0), lesson -> change.run());
+        for (Lesson lesson : lessons.subList(1, lessons.size())) {
+            director.changeProblemProperty(lesson, unchanged -> {});
+        }
+    }
+
+    private static void resizeLessons(TimeTable workingSolution, ProblemChangeDirector director, Course course,
+                                      StudentBatch batch, String lessonType, int lessonCount) {
+        List<Lesson> existing = lessonsOf(workingSolution, course, batch, lessonType);
+        if (existing.size() < lessonCount) {
+            addLessons(workingSolution, director, course, batch, lessonType, lessonCount - existing.size());
+            return;
+        }
+        // The newest lessons go first
+        existing.sort(Comparator.comparing(Lesson::getId, Collections.reverseOrder()));
+        for (Lesson lesson : existing.subList(0, existing.size() - lessonCount)) {
+            director.removeEntity(lesson, workingSolution.getLessonList()::remove);
+        }
+    }
+
+    private static List<Lesson> lessonsOf(TimeTable workingSolution, Course course, StudentBatch batch,
+                                          String lessonType) {
+        List<Lesson> lessons = new ArrayList<>();
+        for (Lesson lesson : workingSolution.getLessonList()) {
+            if (lesson.getCourse() == course && lesson.getStudentBatch() == batch && lessonType.equals(lesson.getLessonType())) {
+                lessons.add(lesson);
+            }
+        }
+        return lessons;
+    }
+
+    // Fails when resizing to lessonCount would have to add lessons without one to copy from
+    private static void requireTemplate(TimeTable workingSolution, Course course, StudentBatch batch,
+                                        String lessonType, int lessonCount) {
+        if (lessonsOf(workingSolution, course, batch, lessonType).size() < lessonCount) {
+            findTemplate(workingSolution, course, batch, lessonType);
+        }
+    }
+
+    // A lesson of the same batch and type, preferring one of the same course
+    private static Lesson findTemplate(TimeTable workingSolution, Course course, StudentBatch batch, String lessonType) {
+        Lesson template = null;
+        for (Lesson lesson : workingSolution.getLessonList()) {
+            if (lesson.getStudentBatch() == batch && lessonType.equals(lesson.getLessonType())
+                    && (template == null || lesson.getCourse() == course)) {
+                template = lesson;
+            }
+        }
+        if (template == null) {
+            throw new IllegalArgumentException("Batch " + batch.getBatchName() + " has no " + lessonType
+                    + " lessons to take slots and rooms from");
+        }
+        return template;
+    }
+
+    // New lessons copy the value range, room and faculty of the template lesson; they start without a slot
+    // so the construction heuristic places them
+    private static void addLessons(TimeTable workingSolution, ProblemChangeDirector director, Course course,
+                                   StudentBatch batch, String lessonType, int count) {
+        Lesson template = findTemplate(workingSolution, course, batch, lessonType);
+
+        long nextId = 1;
+        for (List<Lesson> lessons : List.of(workingSolution.getLessonList(), workingSolution.getMinorLessonList())) {
+            for (Lesson lesson : lessons) {
+                nextId = Math.max(nextId, lesson.getId() + 1);
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            Lesson lesson = new Lesson(nextId++, course, batch, template.getRoomList());
+            lesson.setLessonType(lessonType);
+            lesson.setTimeSlotRange(template.getTimeSlotRange());
+            lesson.setRoom(template.getRoom());
+            if (template.getCourse() == course || course.getEligibleFaculty().isEmpty()) {
+                lesson.setFaculty(template.getFaculty());
+            } else {
+                lesson.setFaculty(course.getEligibleFaculty().get(0));
+            }
+            director.addEntity(lesson, workingSolution.getLessonList()::add);
+            logger.info("Added " + lesson);
+        }
+    }
+
+    private static StudentBatch findBatch(TimeTable workingSolution, long batchId) {
+        for (StudentBatch batch : batches(workingSolution)) {
+            if (batch.getId() == batchId) {
+                return batch;
+            }
+        }
+        throw new IllegalArgumentException("No batch with id " + batchId);
+    }
+
+    // The solution keeps no batch list; every batch with lessons is reachable through them
+    private static Set<StudentBatch> batches(TimeTable workingSolution) {
+        Set<StudentBatch> batches = new LinkedHashSet<>();
+        for (Lesson lesson : workingSolution.getLessonList()) {
+            if (lesson.getStudentBatch() != null) {
+                batches.add(lesson.getStudentBatch());
+            }
+        }
+        return batches;
+    }
+
+    private static void requireArguments(String[] words, int count) {
+        if (words.length != count + 1) {
+            throw new IllegalArgumentException(words[0] + " takes " + count + " arguments, got " + (words.length - 1));
+        }
+    }
+}
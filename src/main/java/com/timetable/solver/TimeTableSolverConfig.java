@@ -0,0 +1,107 @@
+package com.timetable.solver;
+
+import com.timetable.domain.Lesson;
+import com.timetable.domain.TimeTable;
+import com.timetable.score.TimeTableConstraintProvider;
+import com.timetable.score.TimeTableIncrementalScoreCalculator;
+import org.optaplanner.core.config.constructionheuristic.ConstructionHeuristicPhaseConfig;
+import org.optaplanner.core.config.constructionheuristic.ConstructionHeuristicType;
+import org.optaplanner.core.config.heuristic.selector.common.nearby.NearbySelectionConfig;
+import org.optaplanner.core.config.heuristic.selector.entity.EntitySelectorConfig;
+import org.optaplanner.core.config.heuristic.selector.move.composite.UnionMoveSelectorConfig;
+import org.optaplanner.core.config.heuristic.selector.move.generic.ChangeMoveSelectorConfig;
+import org.optaplanner.core.config.heuristic.selector.move.generic.PillarSwapMoveSelectorConfig;
+import org.optaplanner.core.config.heuristic.selector.move.generic.SwapMoveSelectorConfig;
+import org.optaplanner.core.config.localsearch.LocalSearchPhaseConfig;
+import org.optaplanner.core.config.partitionedsearch.PartitionedSearchPhaseConfig;
+import org.optaplanner.core.config.score.director.ScoreDirectorFactoryConfig;
+import org.optaplanner.core.config.solver.SolverConfig;
+import org.optaplanner.core.config.solver.termination.TerminationConfig;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Builds the SolverConfig used by TimeTableApp from the parsed command-line options.
+ */
+public class TimeTableSolverConfig {
+    // Share of the spent limit given to the per-year parts; the rest repairs the merged solution
+    private static final double PARTITION_SPENT_SHARE = 0.75;
+    private static final String NEARBY_ORIGIN_ID = "nearbyOrigin";
+    // Swap partners are drawn mostly from the closest lessons, a batch's own lessons first
+    private static final int NEARBY_DISTRIBUTION_SIZE_MAXIMUM = 40;
+
+    private TimeTableSolverConfig() {}
+
+    public static SolverConfig create(SolverOptions options) {
+        SolverConfig solverConfig = create(options.resolveMoveThreadCount(), options.getSpentLimit(),
+                options.getScoreCalculator());
+        solverConfig.setTerminationConfig(options.getTerminationPolicy().toTerminationConfig());
+        ConstructionHeuristicType constructionHeuristic = options.getConstructionHeuristic();
+        boolean nearbySelection = options.isNearbySelection();
+        if (options.isPartitioned()) {
+            solverConfig.withPhases(createPartitionedPhase(options.getSpentLimit(), constructionHeuristic,
+                    nearbySelection), createLocalSearchPhase(nearbySelection));
+        } else {
+            solverConfig.withPhases(createConstructionHeuristicPhase(constructionHeuristic),
+                    createLocalSearchPhase(nearbySelection));
+        }
+        return solverConfig;
+    }
+
+    // Base configuration shared by every solving mode
+    public static SolverConfig create(String moveThreadCount, Duration spentLimit, String scoreCalculator) {
+        return new SolverConfig()
+                .withSolutionClass(TimeTable.class)
+                .withEntityClasses(Lesson.class)
+                .withScoreDirectorFactory(createScoreDirectorFactory(scoreCalculator))
+                .withMoveThreadCount(moveThreadCount)
+                .withTerminationSpentLimit(spentLimit);
+    }
+
+    // Constraint streams by default, or the hand-written incremental calculator that yields the same score
+    public static ScoreDirectorFactoryConfig createScoreDirectorFactory(String scoreCalculator) {
+        if (SolverOptions.SCORE_CALCULATOR_INCREMENTAL.equals(scoreCalculator)) {
+            return new ScoreDirectorFactoryConfig()
+                    .withIncrementalScoreCalculatorClass(TimeTableIncrementalScoreCalculator.class);
+        }
+        return new ScoreDirectorFactoryConfig()
+                .withConstraintProviderClass(TimeTableConstraintProvider.class);
+    }
+
+    // The decreasing types sort lessons with LessonDifficultyWeightFactory, the weakest and strongest fit types
+    // sort slots with TimeSlotStrengthWeightFactory
+    public static ConstructionHeuristicPhaseConfig createConstructionHeuristicPhase(ConstructionHeuristicType type) {
+        return new ConstructionHeuristicPhaseConfig().withConstructionHeuristicType(type);
+    }
+
+    // Default move selectors, or changes plus swaps with a lesson of the same batch, faculty or room and swaps
+    // of pillars of lessons sharing a slot
+    public static LocalSearchPhaseConfig createLocalSearchPhase(boolean nearbySelection) {
+        if (!nearbySelection) {
+            return new LocalSearchPhaseConfig();
+        }
+        SwapMoveSelectorConfig nearbySwap = new SwapMoveSelectorConfig()
+                .withEntitySelectorConfig(new EntitySelectorConfig().withId(NEARBY_ORIGIN_ID))
+                .withSecondaryEntitySelectorConfig(new EntitySelectorConfig()
+                        .withNearbySelectionConfig(new NearbySelectionConfig()
+                                .withOriginEntitySelectorConfig(EntitySelectorConfig.newMimicSelectorConfig(NEARBY_ORIGIN_ID))
+                                .withNearbyDistanceMeterClass(LessonNearbyDistanceMeter.class)
+                                .withParabolicDistributionSizeMaximum(NEARBY_DISTRIBUTION_SIZE_MAXIMUM)));
+        return new LocalSearchPhaseConfig().withMoveSelectorConfig(new UnionMoveSelectorConfig(List.of(
+                new ChangeMoveSelectorConfig(), nearbySwap, new PillarSwapMoveSelectorConfig())));
+    }
+
+    // Each batch year is constructed and locally searched on its own thread
+    private static PartitionedSearchPhaseConfig createPartitionedPhase(Duration spentLimit,
+                                                                       ConstructionHeuristicType constructionHeuristic,
+                                                                       boolean nearbySelection) {
+        Duration partitionSpentLimit = Duration.ofMillis((long) (spentLimit.toMillis() * PARTITION_SPENT_SHARE));
+        return new PartitionedSearchPhaseConfig()
+                .withSolutionPartitionerClass(BatchYearPartitioner.class)
+                .withRunnablePartThreadLimit(PartitionedSearchPhaseConfig.ACTIVE_THREAD_COUNT_UNLIMITED)
+                .withPhaseConfigs(createConstructionHeuristicPhase(constructionHeuristic),
+                        createLocalSearchPhase(nearbySelection))
+                .withTerminationConfig(new TerminationConfig().withSpentLimit(partitionSpentLimit));
+    }
+}
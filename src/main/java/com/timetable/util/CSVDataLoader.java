@@ -1,262 +1,345 @@
 package com.timetable.util;
 
 import com.timetable.domain.*;
-import com.opencsv.CSVReader;
+import com.opencsv.CSVParser;
 import java.io.BufferedReader;
 import java.io.FileReader;
-import java.io.StringReader;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.logging.Logger;
 import java.util.logging.Level;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.function.Function;
 
 public class CSVDataLoader {
     private static final Logger logger = Logger.getLogger(CSVDataLoader.class.getName());
-    // Removes lines starting with "#" and empty lines from the CSV content
-    private static String removeComments(String csvFile) {
-        StringBuilder filteredContent = new StringBuilder();
+
+    // Turns one data row into a domain object; column helpers below report which column failed
+    @FunctionalInterface
+    private interface RowParser<T> {
+        T parse(String[] row);
+    }
+
+    // A value that could not be parsed, with the zero-based column it came from
+    private static class ColumnException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final int column;
+
+        ColumnException(int column, String message, Throwable cause) {
+            super(message, cause);
+            this.column = column;
+        }
+    }
+
+    // Receives each data row of a file together with its header and line number
+    @FunctionalInterface
+    private interface RowVisitor {
+        void visit(String[] header, int lineNumber, String[] row);
+    }
+
+    // Data rows of one file, read ahead of the objects they reference so files can be read concurrently
+    static final class RawRows {
+        private final String csvFile;
+        private final String kind;
+        private String[] header;
+        private final List<String[]> rows = new ArrayList<>();
+        private final List<Integer> lineNumbers = new ArrayList<>();
+
+        private RawRows(String csvFile, String kind) {
+            this.csvFile = csvFile;
+            this.kind = kind;
+        }
+    }
+
+    // Reads the file line by line, skipping lines starting with "#" and empty lines, and hands each data row
+    // to the visitor as soon as it is read, so only the current line is held in memory.
+    // The first remaining line is the header. Malformed lines are logged with file and line and skipped.
+    private static void forEachRow(String csvFile, String kind, RowVisitor visitor) {
+        CSVParser csvParser = new CSVParser();
+        String[] header = null;
+        int lineNumber = 0;
+        int dataRows = 0;
         try (BufferedReader reader = new BufferedReader(new FileReader(csvFile))) {
             String line;
             while ((line = reader.readLine()) != null) {
+                lineNumber++;
                 // Skip lines that are comments or are empty
-                if (!line.trim().startsWith("#") && !line.trim().isEmpty()) {
-                    filteredContent.append(line).append("\n");
+                if (line.trim().startsWith("#") || line.trim().isEmpty()) {
+                    continue;
                 }
-            }
-        } catch (Exception e) {
-            logger.log(Level.SEVERE, "Error while removing comments from file: " + csvFile, e);
-        }
-        return filteredContent.toString();
-    }
-
-    public static List<Faculty> loadFaculty(String csvFile) {
-        List<Faculty> facultyList = new ArrayList<>();
-        String csvContent = removeComments(csvFile);
-
-        try (CSVReader reader = new CSVReader(new StringReader(csvContent))) {
-            List<String[]> rows = reader.readAll();
-            if (rows.size() <= 1) {
-                logger.warning("No faculty data found in CSV file");
-                return facultyList;
-            }
-            for (int i = 1; i < rows.size(); i++) {
-                String[] row = rows.get(i);
-                if (row.length < 6) {
-                    logger.warning("Invalid row at line " + i + ": insufficient columns");
+                if (header == null) {
+                    header = csvParser.parseLine(line);
                     continue;
                 }
+                dataRows++;
+                String[] row;
                 try {
-                    facultyList.add(getFaculty(row));
+                    requireTerminatedQuotes(line);
+                    row = csvParser.parseLine(line);
+                } catch (ColumnException e) {
+                    String columnName = e.column < header.length ? header[e.column].trim() : "?";
+                    logger.warning(String.format("%s:%d: column %d (%s) of %s row: %s",
+                            csvFile, lineNumber, e.column + 1, columnName, kind, e.getMessage()));
+                    csvParser = new CSVParser(); // Nothing of the broken line may carry over to the next one
+                    continue;
                 } catch (Exception e) {
-                    logger.log(Level.WARNING, "Error processing faculty row " + i, e);
+                    logger.warning(String.format("%s:%d: malformed %s row: %s", csvFile, lineNumber, kind, e.getMessage()));
+                    csvParser = new CSVParser();
+                    continue;
                 }
+                visitor.visit(header, lineNumber, row);
             }
         } catch (Exception e) {
-            logger.log(Level.SEVERE, "Error loading faculty data", e);
+            logger.log(Level.SEVERE, "Error loading " + kind + " data from file: " + csvFile, e);
+        }
+        if (dataRows == 0) {
+            logger.warning("No " + kind + " data found in CSV file");
         }
-        return facultyList;
     }
 
-    public static List<Room> loadRooms(String csvFile) {
-        List<Room> roomList = new ArrayList<>();
-        String csvContent = removeComments(csvFile);
-
-        try (CSVReader reader = new CSVReader(new StringReader(csvContent))) {
-            List<String[]> rows = reader.readAll();
-            if (rows.size() <= 1) {
-                logger.warning("No room data found in CSV file");
-                return roomList;
-            }
-            for (int i = 1; i < rows.size(); i++) {
-                String[] row = rows.get(i);
-                if (row.length < 4) {
-                    logger.warning("Invalid row at line " + i + ": insufficient columns");
-                    continue;
-                }
-                try {
-                    Room room = new Room(
-                            Long.parseLong(row[0].trim()),
-                            row[1].trim(),
-                            Integer.parseInt(row[2].trim()),
-                            RoomType.valueOf(row[3].trim().replace(" ", "_").toUpperCase()) // Adjusted for new room types
-                    );
-                    roomList.add(room);
-                } catch (Exception e) {
-                    logger.log(Level.WARNING, "Error processing room row " + i, e);
-                }
+    // Rows are read one line at a time, so a quoted field must close on its own line. Scans the line the way
+    // CSVParser's defaults do: ',' separates, '"' quotes, '\\' escapes the next character inside quotes
+    private static void requireTerminatedQuotes(String line) {
+        boolean inQuotes = false;
+        int column = 0;
+        int quotedColumn = 0;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (inQuotes && c == CSVParser.DEFAULT_ESCAPE_CHARACTER) {
+                i++;
+            } else if (c == CSVParser.DEFAULT_QUOTE_CHARACTER) {
+                inQuotes = !inQuotes;
+                quotedColumn = column;
+            } else if (!inQuotes && c == CSVParser.DEFAULT_SEPARATOR) {
+                column++;
             }
+        }
+        if (inQuotes) {
+            throw new ColumnException(quotedColumn, "unterminated quote", null);
+        }
+    }
+
+    // Parses the file's rows into domain objects while reading it
+    private static <T> List<T> loadRows(String csvFile, String kind, int minColumns, RowParser<T> parser) {
+        List<T> result = new ArrayList<>();
+        forEachRow(csvFile, kind, (header, lineNumber, row) ->
+                parseRow(csvFile, kind, minColumns, header, lineNumber, row, parser, result));
+        return result;
+    }
+
+    static RawRows readRows(String csvFile, String kind) {
+        RawRows rawRows = new RawRows(csvFile, kind);
+        forEachRow(csvFile, kind, (header, lineNumber, row) -> {
+            rawRows.header = header;
+            rawRows.rows.add(row);
+            rawRows.lineNumbers.add(lineNumber);
+        });
+        return rawRows;
+    }
+
+    private static <T> List<T> parseRows(RawRows rawRows, int minColumns, RowParser<T> parser) {
+        List<T> result = new ArrayList<>(rawRows.rows.size());
+        for (int i = 0; i < rawRows.rows.size(); i++) {
+            parseRow(rawRows.csvFile, rawRows.kind, minColumns, rawRows.header, rawRows.lineNumbers.get(i),
+                    rawRows.rows.get(i), parser, result);
+        }
+        return result;
+    }
+
+    // Rows that fail are logged with file, line and, where known, column, and skipped
+    private static <T> void parseRow(String csvFile, String kind, int minColumns, String[] header, int lineNumber,
+                                     String[] row, RowParser<T> parser, List<T> result) {
+        if (row.length < minColumns) {
+            logger.warning(String.format("%s:%d: invalid %s row: insufficient columns (%d of %d)",
+                    csvFile, lineNumber, kind, row.length, minColumns));
+            return;
+        }
+        try {
+            result.add(parser.parse(row));
+        } catch (ColumnException e) {
+            String columnName = e.column < header.length ? header[e.column].trim() : "?";
+            logger.warning(String.format("%s:%d: column %d (%s) of %s row: %s",
+                    csvFile, lineNumber, e.column + 1, columnName, kind, e.getMessage()));
         } catch (Exception e) {
-            logger.log(Level.SEVERE, "Error loading room data", e);
+            logger.log(Level.WARNING, String.format("%s:%d: error processing %s row", csvFile, lineNumber, kind), e);
         }
-        return roomList;
+    }
+
+    public static List<Faculty> loadFaculty(String csvFile) {
+        return loadRows(csvFile, "faculty", 6, CSVDataLoader::parseFaculty);
+    }
+
+    public static List<Room> loadRooms(String csvFile) {
+        return loadRows(csvFile, "room", 4, CSVDataLoader::parseRoom);
     }
 
     // Updated to handle new Course attributes based on the revised CSV structure
     public static List<Course> loadCourses(String csvFile, List<Faculty> facultyList) {
-        List<Course> courseList = new ArrayList<>();
-        String csvContent = removeComments(csvFile);
-
-        try (CSVReader reader = new CSVReader(new StringReader(csvContent))) {
-            List<String[]> rows = reader.readAll();
-            if (rows.size() <= 1) {
-                logger.warning("No course data found in CSV file");
-                return courseList;
-            }
-            for (int i = 1; i < rows.size(); i++) {
-                String[] row = rows.get(i);
-                if (row.length < 11) {
-                    logger.warning("Invalid row at line " + i + ": insufficient columns");
-                    continue;
-                }
-                try {
-                    List<Faculty> eligibleFaculty = new ArrayList<>();
-                    for (String facultyId : row[10].trim().split(";")) {
-                        facultyList.stream()
-                                .filter(f -> f.getId().equals(Long.parseLong(facultyId.trim())))
-                                .findFirst()
-                                .ifPresent(eligibleFaculty::add);
-                    }
-
-                    // Parse batchIds (changed from branch and section to batchIds)
-                    List<Integer> batchIds = new ArrayList<>();
-                    for (String batchId : row[4].trim().split(";")) {
-                        batchIds.add(Integer.parseInt(batchId.trim()));
-                    }
-
-                    Course course = new Course(
-                            Long.parseLong(row[0].trim()),                // id
-                            row[1].trim(),                                // courseCode
-                            row[2].trim(),                                // name
-                            row[3].trim(),                                // courseType (regular or elective)
-                            batchIds,                                     // List of batch IDs
-                            Integer.parseInt(row[5].trim()),              // lecture hours
-                            Integer.parseInt(row[6].trim()),              // theory hours
-                            Integer.parseInt(row[7].trim()),              // practical hours
-                            Integer.parseInt(row[8].trim()),              // credits
-                            eligibleFaculty                               // eligible faculty list
-                    );
-
-                    courseList.add(course);
-                } catch (Exception e) {
-                    logger.log(Level.WARNING, "Error processing course row " + i, e);
-                }
-            }
-        } catch (Exception e) {
-            logger.log(Level.SEVERE, "Error loading course data", e);
-        }
-        return courseList;
+        return loadRows(csvFile, "course", 11, courseParser(facultyList));
+    }
+
+    static List<Course> parseCourses(RawRows rawRows, List<Faculty> facultyList) {
+        return parseRows(rawRows, 11, courseParser(facultyList));
     }
 
     public static List<Course> loadMinors(String csvFile, List<Faculty> facultyList) {
-        List<Course> minorCourses = new ArrayList<>();
-        String csvContent = removeComments(csvFile);
-
-        try (CSVReader reader = new CSVReader(new StringReader(csvContent))) {
-            List<String[]> rows = reader.readAll();
-            if (rows.size() <= 1) {
-                logger.warning("No minor data found in CSV file");
-                return minorCourses;
-            }
-            for (int i = 1; i < rows.size(); i++) {
-                String[] row = rows.get(i);
-                if (row.length < 12) {
-                    logger.warning("Invalid row at line " + i + ": insufficient columns");
-                    continue;
-                }
-                try {
-                    List<Faculty> eligibleFaculty = new ArrayList<>();
-                    for (String facultyId : row[10].trim().split(";")) {
-                        facultyList.stream()
-                                .filter(f -> f.getId().equals(Long.parseLong(facultyId.trim())))
-                                .findFirst()
-                                .ifPresent(eligibleFaculty::add);
-                    }
-
-                    List<Long> lectureRoomIDs = parseRoomIDs(row[11]);
-
-                    Course minor = new Course(
-                            Long.parseLong(row[0].trim()),               // id
-                            row[1].trim(),                               // courseCode
-                            row[2].trim(),                               // name
-                            row[3].trim(),                               // courseType
-                            List.of(-1),                             // batchId (-1 for ALL)
-                            Integer.parseInt(row[5].trim()),             // lecture hours
-                            Integer.parseInt(row[6].trim()),             // theory hours
-                            Integer.parseInt(row[7].trim()),             // practical hours
-                            Integer.parseInt(row[8].trim()),             // credits
-                            eligibleFaculty,                             // eligible faculty list
-                            lectureRoomIDs                               // lectureRoomIDs
-                    );
-
-                    minorCourses.add(minor);
-                } catch (Exception e) {
-                    logger.log(Level.WARNING, "Error processing minor row " + i, e);
-                }
-            }
-        } catch (Exception e) {
-            logger.log(Level.SEVERE, "Error loading minor data", e);
-        }
-        return minorCourses;
+        return loadRows(csvFile, "minor", 12, minorParser(facultyList));
+    }
+
+    static List<Course> parseMinors(RawRows rawRows, List<Faculty> facultyList) {
+        return parseRows(rawRows, 12, minorParser(facultyList));
     }
 
     public static List<StudentBatch> loadStudentBatches(String csvFile, List<Course> courseList) {
-        List<StudentBatch> batchList = new ArrayList<>();
-        String csvContent = removeComments(csvFile);
-
-        try (CSVReader reader = new CSVReader(new StringReader(csvContent))) {
-            List<String[]> rows = reader.readAll();
-            if (rows.size() <= 1) {
-                logger.warning("No batch data found in CSV file");
-                return batchList;
+        return loadRows(csvFile, "batch", 7, batchParser(courseList));
+    }
+
+    static List<StudentBatch> parseStudentBatches(RawRows rawRows, List<Course> courseList) {
+        return parseRows(rawRows, 7, batchParser(courseList));
+    }
+
+    private static Faculty parseFaculty(String[] row) {
+        return new Faculty(
+                longColumn(row, 0), row[1].trim(), row[2].trim(),
+                row[3].trim(), List.of(row[4].trim().split(";")),
+                intColumn(row, 5)
+        );
+    }
+
+    private static Room parseRoom(String[] row) {
+        return new Room(
+                longColumn(row, 0),
+                row[1].trim(),
+                intColumn(row, 2),
+                roomTypeColumn(row, 3) // Adjusted for new room types
+        );
+    }
+
+    private static RowParser<Course> courseParser(List<Faculty> facultyList) {
+        Map<Long, Faculty> facultyById = indexById(facultyList, Faculty::getId);
+        return row -> {
+            List<Faculty> eligibleFaculty = resolveIds(row, 10, facultyById);
+
+            // Parse batchIds (changed from branch and section to batchIds)
+            List<Integer> batchIds = new ArrayList<>();
+            for (String batchId : row[4].trim().split(";")) {
+                batchIds.add(parseInt(4, batchId));
             }
-            for (int i = 1; i < rows.size(); i++) {
-                String[] row = rows.get(i);
-                if (row.length < 7) {
-                    logger.warning("Invalid row at line " + i + ": insufficient columns");
-                    continue;
-                }
-                try {
-                    List<Course> courses = new ArrayList<>();
-                    for (String courseId : row[4].trim().split(";")) {
-                        courseList.stream()
-                                .filter(c -> c.getId().equals(Long.parseLong(courseId.trim())))
-                                .findFirst()
-                                .ifPresent(courses::add);
-                    }
-
-                    List<Long> lectureRoomIDs = parseRoomIDs(row[5]);
-                    List<Long> practicalRoomIDs = parseRoomIDs(row[6]);
-
-                    batchList.add(new StudentBatch(
-                            Long.parseLong(row[0].trim()), row[1].trim(),
-                            Integer.parseInt(row[2].trim()), Integer.parseInt(row[3].trim()),
-                            courses, lectureRoomIDs, practicalRoomIDs
-                    ));
-                } catch (Exception e) {
-                    logger.log(Level.WARNING, "Error processing batch row " + i, e);
-                }
+
+            return new Course(
+                    longColumn(row, 0),                           // id
+                    row[1].trim(),                                // courseCode
+                    row[2].trim(),                                // name
+                    row[3].trim(),                                // courseType (regular or elective)
+                    batchIds,                                     // List of batch IDs
+                    intColumn(row, 5),                            // lecture hours
+                    intColumn(row, 6),                            // theory hours
+                    intColumn(row, 7),                            // practical hours
+                    intColumn(row, 8),                            // credits
+                    eligibleFaculty                               // eligible faculty list
+            );
+        };
+    }
+
+    private static RowParser<Course> minorParser(List<Faculty> facultyList) {
+        Map<Long, Faculty> facultyById = indexById(facultyList, Faculty::getId);
+        return row -> {
+            List<Faculty> eligibleFaculty = resolveIds(row, 10, facultyById);
+            List<Long> lectureRoomIDs = parseRoomIDs(row, 11);
+
+            return new Course(
+                    longColumn(row, 0),                          // id
+                    row[1].trim(),                               // courseCode
+                    row[2].trim(),                               // name
+                    row[3].trim(),                               // courseType
+                    List.of(-1),                             // batchId (-1 for ALL)
+                    intColumn(row, 5),                           // lecture hours
+                    intColumn(row, 6),                           // theory hours
+                    intColumn(row, 7),                           // practical hours
+                    intColumn(row, 8),                           // credits
+                    eligibleFaculty,                             // eligible faculty list
+                    lectureRoomIDs                               // lectureRoomIDs
+            );
+        };
+    }
+
+    private static RowParser<StudentBatch> batchParser(List<Course> courseList) {
+        Map<Long, Course> courseById = indexById(courseList, Course::getId);
+        return row -> {
+            List<Course> courses = resolveIds(row, 4, courseById);
+            List<Long> lectureRoomIDs = parseRoomIDs(row, 5);
+            List<Long> practicalRoomIDs = parseRoomIDs(row, 6);
+
+            return new StudentBatch(
+                    longColumn(row, 0), row[1].trim(),
+                    intColumn(row, 2), intColumn(row, 3),
+                    courses, lectureRoomIDs, practicalRoomIDs
+            );
+        };
+    }
+
+    // Index built once per file so cross-references resolve in constant time; the first item wins on duplicate IDs
+    public static <T> Map<Long, T> indexById(List<T> items, Function<T, Long> idOf) {
+        Map<Long, T> index = new HashMap<>(items.size() * 2);
+        for (T item : items) {
+            index.putIfAbsent(idOf.apply(item), item);
+        }
+        return index;
+    }
+
+    // Resolves a ';' separated list of IDs, skipping IDs that are not in the index
+    private static <T> List<T> resolveIds(String[] row, int column, Map<Long, T> index) {
+        List<T> resolved = new ArrayList<>();
+        for (String id : row[column].trim().split(";")) {
+            T item = index.get(parseLong(column, id));
+            if (item != null) {
+                resolved.add(item);
             }
-        } catch (Exception e) {
-            logger.log(Level.SEVERE, "Error loading batch data", e);
         }
-        return batchList;
+        return resolved;
     }
 
     // Helper method to parse room IDs
-    private static List<Long> parseRoomIDs(String roomIDs) {
-        return Stream.of(roomIDs.split(";"))
-                .map(id -> Long.parseLong(id.trim()))
-                .collect(Collectors.toList());
+    private static List<Long> parseRoomIDs(String[] row, int column) {
+        List<Long> roomIDs = new ArrayList<>();
+        for (String id : row[column].split(";")) {
+            roomIDs.add(parseLong(column, id));
+        }
+        return roomIDs;
     }
 
+    private static long longColumn(String[] row, int column) {
+        return parseLong(column, row[column]);
+    }
 
-    private static Faculty getFaculty(String[] row) {
-        return new Faculty(
-                Long.parseLong(row[0].trim()), row[1].trim(), row[2].trim(),
-                row[3].trim(), List.of(row[4].trim().split(";")),
-                Integer.parseInt(row[5].trim())
-        );
+    private static int intColumn(String[] row, int column) {
+        return parseInt(column, row[column]);
+    }
+
+    private static long parseLong(int column, String value) {
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            throw new ColumnException(column, "not a number: '" + value.trim() + "'", e);
+        }
+    }
+
+    private static int parseInt(int column, String value) {
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new ColumnException(column, "not a number: '" + value.trim() + "'", e);
+        }
+    }
+
+    private static RoomType roomTypeColumn(String[] row, int column) {
+        String value = row[column].trim().replace(" ", "_").toUpperCase();
+        try {
+            return RoomType.valueOf(value);
+        } catch (IllegalArgumentException e) {
+            throw new ColumnException(column, "unknown room type: '" + row[column].trim() + "'", e);
+        }
     }
 }
@@ -0,0 +1,39 @@
+package com.timetable.util;
+
+import com.timetable.domain.Course;
+import com.timetable.domain.Faculty;
+import com.timetable.domain.Room;
+import com.timetable.domain.StudentBatch;
+
+import java.util.List;
+
+/**
+ * The five input files of a timetable, loaded and cross-referenced. The lists cannot be modified;
+ * copy them before handing them to code that sorts or extends them.
+ */
+public final class Dataset {
+    private final List<Faculty> facultyList;
+    private final List<Room> roomList;
+    private final List<Course> courseList;
+    private final List<Course> minorCourseList;
+    private final List<StudentBatch> batchList;
+
+    public Dataset(List<Faculty> facultyList, List<Room> roomList, List<Course> courseList,
+                   List<Course> minorCourseList, List<StudentBatch> batchList) {
+        this.facultyList = List.copyOf(facultyList);
+        this.roomList = List.copyOf(roomList);
+        this.courseList = List.copyOf(courseList);
+        this.minorCourseList = List.copyOf(minorCourseList);
+        this.batchList = List.copyOf(batchList);
+    }
+
+    public List<Faculty> getFacultyList() { return facultyList; }
+
+    public List<Room> getRoomList() { return roomList; }
+
+    public List<Course> getCourseList() { return courseList; }
+
+    public List<Course> getMinorCourseList() { return minorCourseList; }
+
+    public List<StudentBatch> getBatchList() { return batchList; }
+}
@@ -0,0 +1,248 @@
+package com.timetable.util;
+
+import com.opencsv.CSVWriter;
+import com.timetable.TimeTableApp;
+import com.timetable.domain.TimeTable;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.StringJoiner;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Writes a synthetic institution as faculty.csv, rooms.csv, courses.csv, batches.csv and minor.csv in the
+ * format CSVDataLoader reads. The defaults match the size of the shipped CSVs; --scale multiplies the batches,
+ * faculty, rooms and minors so the loader, createInitialSolution and the solver can be measured at 10x or 100x.
+ * The same arguments and seed always produce the same files.
+ *
+ * Arguments: --years=n --batches-per-year=n --courses-per-batch=n --faculty=n --rooms=n --minors=n
+ *            --scale=n --seed=n --output=directory --load
+ */
+public class DatasetGenerator {
+    private static final Logger logger = Logger.getLogger(DatasetGenerator.class.getName());
+    private static final int FIRST_YEAR = 2024;      // Batch years count down from here, like the shipped batches
+    private static final int ROOMS_PER_FLOOR = 8;    // 4 lecture rooms, 3 computer labs and a hardware lab per floor
+    private static final double LAB_COURSE_SHARE = 0.3;
+
+    private int years = 4;
+    private int batchesPerYear = 4;
+    private int coursesPerBatch = 5;
+    private int facultyCount = 40;
+    private int roomCount = 35;
+    private int minorCount = 5;
+    private long seed = 0L;
+
+    public DatasetGenerator() {}
+
+    public static void main(String[] args) {
+        DatasetGenerator generator = new DatasetGenerator();
+        Path output = Paths.get("generated");
+        boolean load = false;
+        int scale = 1;
+        try {
+            for (String arg : args) {
+                int separator = arg.indexOf('=');
+                String name = separator >= 0 ? arg.substring(0, separator) : arg;
+                String value = separator >= 0 ? arg.substring(separator + 1).trim() : null;
+                switch (name) {
+                    case "--years":
+                        generator.setYears(parsePositive(name, value));
+                        break;
+                    case "--batches-per-year":
+                        generator.setBatchesPerYear(parsePositive(name, value));
+                        break;
+                    case "--courses-per-batch":
+                        generator.setCoursesPerBatch(parsePositive(name, value));
+                        break;
+                    case "--faculty":
+                        generator.setFacultyCount(parsePositive(name, value));
+                        break;
+                    case "--rooms":
+                        generator.setRoomCount(parsePositive(name, value));
+                        break;
+                    case "--minors":
+                        generator.setMinorCount(parsePositive(name, value));
+                        break;
+                    case "--scale":
+                        scale = parsePositive(name, value);
+                        break;
+                    case "--seed":
+                        generator.setSeed(Long.parseLong(requireValue(name, value)));
+                        break;
+                    case "--output":
+                        output = Paths.get(requireValue(name, value));
+                        break;
+                    case "--load":
+                        load = true;
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown argument: " + arg);
+                }
+            }
+            generator.scale(scale);
+            generator.write(output);
+
+            if (load) {
+                // Loading and lesson creation log every lesson at INFO, which would dominate the timing
+                Logger.getLogger("").setLevel(Level.WARNING);
+                long start = System.nanoTime();
+                TimeTable problem = TimeTableApp.loadProblem(output);
+                logger.warning(String.format("Loaded %d lessons and %d minor lessons in %d ms",
+                        problem.getLessonList().size(), problem.getMinorLessonList().size(),
+                        (System.nanoTime() - start) / 1_000_000));
+            }
+        } catch (Exception e) {
+            logger.log(Level.SEVERE, "Dataset generation failed", e);
+            System.exit(1);
+        }
+    }
+
+    // Multiplies the batches, faculty, rooms and minors; years and courses per batch keep their shape
+    public void scale(int factor) {
+        batchesPerYear *= factor;
+        facultyCount *= factor;
+        roomCount *= factor;
+        minorCount *= factor;
+    }
+
+    public void write(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        Random random = new Random(seed);
+
+        List<String[]> rooms = new ArrayList<>();
+        List<Long> lectureRoomIds = new ArrayList<>();
+        List<Long> labRoomIds = new ArrayList<>();
+        int seaterCount = Math.max(1, roomCount / 12);
+        for (long id = 1; id <= roomCount; id++) {
+            int floorPosition = (int) ((id - 1) % ROOMS_PER_FLOOR);
+            String type;
+            if (id > roomCount - seaterCount) {
+                type = "SEATER_120";
+            } else if (floorPosition < 4) {
+                type = "LECTURE_ROOM";
+                lectureRoomIds.add(id);
+            } else {
+                type = floorPosition < 7 ? "COMPUTER_LAB" : "HARDWARE_LAB";
+                labRoomIds.add(id);
+            }
+            rooms.add(new String[]{String.valueOf(id), "R" + id, type.startsWith("SEATER") ? "120" : "100", type});
+        }
+        if (lectureRoomIds.isEmpty() || labRoomIds.isEmpty()) {
+            throw new IllegalArgumentException("At least " + (ROOMS_PER_FLOOR + 1)
+                    + " rooms are needed for a lecture room, a lab and a seater");
+        }
+
+        List<String[]> faculty = new ArrayList<>();
+        for (long id = 1; id <= facultyCount; id++) {
+            faculty.add(new String[]{String.valueOf(id), "Faculty " + id, "faculty" + id + "@example.edu", "pass123",
+                    "Subject " + id, "4"});
+        }
+
+        // Each batch gets its own courses, a lecture room and a practical room, as in the shipped batches
+        List<String[]> batches = new ArrayList<>();
+        List<String[]> courses = new ArrayList<>();
+        long batchId = 1;
+        long courseId = 1;
+        for (int yearIndex = 0; yearIndex < years; yearIndex++) {
+            int year = FIRST_YEAR - yearIndex;
+            for (int b = 0; b < batchesPerYear; b++, batchId++) {
+                StringJoiner courseIds = new StringJoiner(";");
+                for (int c = 0; c < coursesPerBatch; c++, courseId++) {
+                    boolean lab = random.nextDouble() < LAB_COURSE_SHARE;
+                    int theory = lab ? 0 : random.nextInt(2);
+                    courses.add(new String[]{String.valueOf(courseId), "GEN" + courseId, "Course " + courseId,
+                            random.nextInt(4) == 0 ? "elective" : "regular", String.valueOf(batchId),
+                            "3", String.valueOf(theory), lab ? "2" : "0", "4", lab ? "5" : "4",
+                            randomFacultyIds(random)});
+                    courseIds.add(String.valueOf(courseId));
+                }
+                batches.add(new String[]{String.valueOf(batchId), "B" + batchId + "_" + year, String.valueOf(year),
+                        random.nextBoolean() ? "70" : "100", courseIds.toString(),
+                        String.valueOf(lectureRoomIds.get((int) ((batchId - 1) % lectureRoomIds.size()))),
+                        String.valueOf(labRoomIds.get((int) ((batchId - 1) % labRoomIds.size())))});
+            }
+        }
+
+        List<String[]> minors = new ArrayList<>();
+        for (long id = 1; id <= minorCount; id++) {
+            minors.add(new String[]{String.valueOf(id), "MIN" + id, "Minor " + id, "minor", "ALL", "3", "0", "0", "3", "3",
+                    String.valueOf(1 + random.nextInt(facultyCount)),
+                    String.valueOf(rooms.size() - random.nextInt(seaterCount))});
+        }
+
+        writeCsv(directory.resolve("faculty.csv"),
+                new String[]{"id", "name", "email", "password", "subjects", "maxHoursPerDay"}, faculty);
+        writeCsv(directory.resolve("rooms.csv"), new String[]{"id", "roomNumber", "capacity", "type"}, rooms);
+        writeCsv(directory.resolve("courses.csv"), new String[]{"id", "courseCode", "name", "courseType", "batchId",
+                "lecture", "theory", "practical", "credits", "hoursPerWeek", "eligibleFacultyIds"}, courses);
+        writeCsv(directory.resolve("batches.csv"), new String[]{"id", "batchName", "year", "strength", "courseIds",
+                "lectureRoomIDs", "practicalRoomIDs"}, batches);
+        writeCsv(directory.resolve("minor.csv"), new String[]{"id", "courseCode", "name", "courseType", "batchId",
+                "lecture", "theory", "practical", "credits", "hoursPerWeek", "eligibleFacultyIds", "lectureRoomIDs"}, minors);
+        logger.info(String.format("Wrote %d faculty, %d rooms, %d courses, %d batches and %d minors to %s",
+                faculty.size(), rooms.size(), courses.size(), batches.size(), minors.size(), directory));
+    }
+
+    // One or two distinct eligible faculty, like the shipped courses
+    private String randomFacultyIds(Random random) {
+        long first = 1 + random.nextInt(facultyCount);
+        if (facultyCount < 2 || random.nextInt(3) != 0) {
+            return String.valueOf(first);
+        }
+        long second = 1 + (first + random.nextInt(facultyCount - 1)) % facultyCount;
+        return first + ";" + second;
+    }
+
+    private static void writeCsv(Path file, String[] header, List<String[]> rows) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(file); CSVWriter csvWriter = new CSVWriter(writer)) {
+            writer.write("#" + file.getFileName() + "\n");
+            csvWriter.writeNext(header, false);
+            for (String[] row : rows) {
+                csvWriter.writeNext(row, false);
+            }
+        }
+    }
+
+    private static String requireValue(String name, String value) {
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException("Missing value for " + name);
+        }
+        return value;
+    }
+
+    private static int parsePositive(String name, String value) {
+        int parsed = Integer.parseInt(requireValue(name, value));
+        if (parsed < 1) {
+            throw new IllegalArgumentException(name + " must be positive: " + value);
+        }
+        return parsed;
+    }
+
+    public int getYears() { return years; }
+    public void setYears(int years) { this.years = years; }
+
+    public int getBatchesPerYear() { return batchesPerYear; }
+    public void setBatchesPerYear(int batchesPerYear) { this.batchesPerYear = batchesPerYear; }
+
+    public int getCoursesPerBatch() { return coursesPerBatch; }
+    public void setCoursesPerBatch(int coursesPerBatch) { this.coursesPerBatch = coursesPerBatch; }
+
+    public int getFacultyCount() { return facultyCount; }
+    public void setFacultyCount(int facultyCount) { this.facultyCount = facultyCount; }
+
+    public int getRoomCount() { return roomCount; }
+    public void setRoomCount(int roomCount) { this.roomCount = roomCount; }
+
+    public int getMinorCount() { return minorCount; }
+    public void setMinorCount(int minorCount) { this.minorCount = minorCount; }
+
+    public long getSeed() { return seed; }
+    public void setSeed(long seed) { this.seed = seed; }
+}
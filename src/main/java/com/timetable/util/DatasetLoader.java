@@ -0,0 +1,69 @@
+package com.timetable.util;
+
+import com.timetable.domain.Course;
+import com.timetable.domain.Faculty;
+import com.timetable.domain.Room;
+import com.timetable.domain.StudentBatch;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Logger;
+
+/**
+ * Loads faculty.csv, rooms.csv, courses.csv, minor.csv and batches.csv from a directory.
+ * All five files are read concurrently. Faculty and rooms are parsed while they are read. The other files
+ * are read into raw rows first, then parsed once the files they reference are ready: courses and minors
+ * after faculty, batches after courses.
+ */
+public class DatasetLoader {
+    private static final Logger logger = Logger.getLogger(DatasetLoader.class.getName());
+    // The input files a data directory must hold
+    public static final List<String> FILE_NAMES = List.of("faculty.csv", "rooms.csv", "courses.csv", "minor.csv", "batches.csv");
+    private static final int FILE_COUNT = FILE_NAMES.size();
+
+    private DatasetLoader() {}
+
+    public static Dataset load(Path directory) {
+        long start = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(FILE_COUNT, runnable -> {
+            Thread thread = new Thread(runnable, "dataset-loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            CompletableFuture<List<Faculty>> faculty = CompletableFuture.supplyAsync(
+                    () -> CSVDataLoader.loadFaculty(file(directory, "faculty.csv")), executor);
+            CompletableFuture<List<Room>> rooms = CompletableFuture.supplyAsync(
+                    () -> CSVDataLoader.loadRooms(file(directory, "rooms.csv")), executor);
+            CompletableFuture<CSVDataLoader.RawRows> courseRows = CompletableFuture.supplyAsync(
+                    () -> CSVDataLoader.readRows(file(directory, "courses.csv"), "course"), executor);
+            CompletableFuture<CSVDataLoader.RawRows> minorRows = CompletableFuture.supplyAsync(
+                    () -> CSVDataLoader.readRows(file(directory, "minor.csv"), "minor"), executor);
+            CompletableFuture<CSVDataLoader.RawRows> batchRows = CompletableFuture.supplyAsync(
+                    () -> CSVDataLoader.readRows(file(directory, "batches.csv"), "batch"), executor);
+
+            CompletableFuture<List<Course>> courses = courseRows.thenCombine(faculty, CSVDataLoader::parseCourses);
+            CompletableFuture<List<Course>> minors = minorRows.thenCombine(faculty, CSVDataLoader::parseMinors);
+            CompletableFuture<List<StudentBatch>> batches = batchRows.thenCombine(courses, CSVDataLoader::parseStudentBatches);
+
+            Dataset dataset = new Dataset(faculty.join(), rooms.join(), courses.join(), minors.join(), batches.join());
+            logger.info(String.format("Loaded %d faculty, %d rooms, %d courses, %d minors and %d batches from %s in %d ms",
+                    dataset.getFacultyList().size(), dataset.getRoomList().size(), dataset.getCourseList().size(),
+                    dataset.getMinorCourseList().size(), dataset.getBatchList().size(), directory.toAbsolutePath(),
+                    (System.nanoTime() - start) / 1_000_000));
+            return dataset;
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static String file(Path directory, String name) {
+        return directory.resolve(name).toString();
+    }
+}
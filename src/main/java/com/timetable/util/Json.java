@@ -0,0 +1,37 @@
+package com.timetable.util;
+
+/**
+ * String escaping for the small JSON documents the solving service and the progress log write by hand.
+ */
+public class Json {
+    private Json() {}
+
+    // A JSON string literal, or null
+    public static String quote(String value) {
+        if (value == null) {
+            return "null";
+        }
+        StringBuilder quoted = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '"': quoted.append("\\\""); break;
+                case '\\': quoted.append("\\\\"); break;
+                case '\n': quoted.append("\\n"); break;
+                case '\r': quoted.append("\\r"); break;
+                case '\t': quoted.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        quoted.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        quoted.append(c);
+                    }
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    // The value's string form as a JSON string literal, or null
+    public static String quote(Object value) {
+        return quote(value != null ? value.toString() : null);
+    }
+}
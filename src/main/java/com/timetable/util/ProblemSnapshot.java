@@ -0,0 +1,530 @@
+package com.timetable.util;
+
+import com.timetable.domain.*;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Binary snapshot of a fully built, unsolved TimeTable: faculty, rooms, courses, batches, the time slot catalogue
+ * and the lessons with their value ranges. The header holds the SHA-256 of every source CSV, so a snapshot is only
+ * used while the CSVs it was built from are unchanged. Snapshots are read through a memory-mapped buffer.
+ *
+ * Objects reference each other by their position in the snapshot, not by id, because courses and minors share ids.
+ * Bump VERSION whenever the layout or the way TimeTableApp builds the problem changes.
+ */
+public class ProblemSnapshot {
+    private static final Logger logger = Logger.getLogger(ProblemSnapshot.class.getName());
+    private static final int MAGIC = 0x54545350; // "TTSP"
+    private static final int VERSION = 2;
+    private static final String[] SOURCE_FILES = {"faculty.csv", "rooms.csv", "courses.csv", "minor.csv", "batches.csv"};
+
+    // Lesson.roomList is the problem's room list for every lesson the app creates; anything else is written out
+    private static final int ROOM_LIST_NULL = 0;
+    private static final int ROOM_LIST_PROBLEM = 1;
+    private static final int ROOM_LIST_OWN = 2;
+
+    private ProblemSnapshot() {}
+
+    // Reads the snapshot when it matches the CSVs in dataDirectory, otherwise builds the problem and rewrites it
+    public static TimeTable loadOrBuild(Path dataDirectory, Path snapshotFile, Supplier<TimeTable> builder) {
+        byte[][] sourceHashes = hashSources(dataDirectory);
+        if (Files.exists(snapshotFile)) {
+            long start = System.nanoTime();
+            try {
+                TimeTable problem = read(snapshotFile, sourceHashes);
+                if (problem != null) {
+                    logger.info(String.format("Loaded problem snapshot %s in %d ms",
+                            snapshotFile, (System.nanoTime() - start) / 1_000_000));
+                    return problem;
+                }
+                logger.info("Problem snapshot " + snapshotFile + " is out of date, rebuilding it");
+            } catch (IOException | RuntimeException e) {
+                logger.log(Level.WARNING, "Cannot read problem snapshot " + snapshotFile + ", rebuilding it", e);
+            }
+        }
+        TimeTable problem = builder.get();
+        try {
+            write(problem, sourceHashes, snapshotFile);
+            logger.info("Wrote problem snapshot " + snapshotFile);
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Cannot write problem snapshot " + snapshotFile, e);
+        }
+        return problem;
+    }
+
+    private static byte[][] hashSources(Path dataDirectory) {
+        byte[][] hashes = new byte[SOURCE_FILES.length][];
+        for (int i = 0; i < SOURCE_FILES.length; i++) {
+            hashes[i] = sha256(dataDirectory.resolve(SOURCE_FILES[i]));
+        }
+        return hashes;
+    }
+
+    // Digest of the file's content; a missing file hashes to all zeros so its later appearance invalidates
+    private static byte[] sha256(Path file) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            if (Files.exists(file)) {
+                try (InputStream in = new DigestInputStream(Files.newInputStream(file), digest)) {
+                    byte[] buffer = new byte[64 * 1024];
+                    while (in.read(buffer) != -1) {
+                        // DigestInputStream updates the digest as it reads
+                    }
+                }
+                return digest.digest();
+            }
+            return new byte[digest.getDigestLength()];
+        } catch (NoSuchAlgorithmException | IOException e) {
+            throw new IllegalStateException("Cannot hash " + file, e);
+        }
+    }
+
+    public static void write(TimeTable problem, byte[][] sourceHashes, Path snapshotFile) throws IOException {
+        Path directory = snapshotFile.toAbsolutePath().getParent();
+        if (directory != null) {
+            Files.createDirectories(directory);
+        }
+        // Written next to the target and moved into place, so a reader never maps a half-written file
+        Path temporaryFile = Files.createTempFile(directory, "problem", ".snapshot.tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryFile)))) {
+            new Writer(out).writeProblem(problem, sourceHashes);
+        }
+        Files.move(temporaryFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Returns null when the snapshot was written by another version or from other CSV contents
+    public static TimeTable read(Path snapshotFile, byte[][] sourceHashes) throws IOException {
+        try (FileChannel channel = FileChannel.open(snapshotFile, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                return null;
+            }
+            for (byte[] expected : sourceHashes) {
+                byte[] actual = new byte[buffer.getInt()];
+                buffer.get(actual);
+                if (!Arrays.equals(expected, actual)) {
+                    return null;
+                }
+            }
+            return new Reader(buffer).readProblem();
+        }
+    }
+
+    private static final class Writer {
+        private final DataOutputStream out;
+        private final Map<Object, Integer> facultyIndex = new IdentityHashMap<>();
+        private final Map<Object, Integer> roomIndex = new IdentityHashMap<>();
+        private final Map<Object, Integer> courseIndex = new IdentityHashMap<>();
+        private final Map<Object, Integer> batchIndex = new IdentityHashMap<>();
+        private final Map<Object, Integer> rangeIndex = new IdentityHashMap<>();
+
+        private Writer(DataOutputStream out) {
+            this.out = out;
+        }
+
+        private void writeProblem(TimeTable problem, byte[][] sourceHashes) throws IOException {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            for (byte[] hash : sourceHashes) {
+                out.writeInt(hash.length);
+                out.write(hash);
+            }
+            out.writeLong(problem.getId() != null ? problem.getId() : 0L);
+
+            out.writeInt(problem.getFacultyList().size());
+            for (Faculty faculty : problem.getFacultyList()) {
+                facultyIndex.put(faculty, facultyIndex.size());
+                writeNullableLong(faculty.getId());
+                writeString(faculty.getName());
+                writeString(faculty.getEmail());
+                writeString(faculty.getPassword());
+                out.writeInt(faculty.getSubjects().size());
+                for (String subject : faculty.getSubjects()) {
+                    writeString(subject);
+                }
+                out.writeInt(faculty.getMaxHoursPerDay());
+            }
+
+            out.writeInt(problem.getRoomList().size());
+            for (Room room : problem.getRoomList()) {
+                roomIndex.put(room, roomIndex.size());
+                writeNullableLong(room.getId());
+                writeString(room.getRoomNumber());
+                out.writeInt(room.getCapacity());
+                writeString(room.getType() != null ? room.getType().name() : null);
+                out.writeBoolean(room.isAvailable());
+            }
+
+            // Courses reached from batches and lessons, in first-seen order
+            List<Course> courses = new ArrayList<>();
+            List<StudentBatch> batches = new ArrayList<>();
+            for (Lesson lesson : allLessons(problem)) {
+                if (lesson.getStudentBatch() != null && !batchIndex.containsKey(lesson.getStudentBatch())) {
+                    batchIndex.put(lesson.getStudentBatch(), batches.size());
+                    batches.add(lesson.getStudentBatch());
+                    for (Course course : lesson.getStudentBatch().getCourses()) {
+                        addCourse(course, courses);
+                    }
+                }
+                addCourse(lesson.getCourse(), courses);
+            }
+            out.writeInt(courses.size());
+            for (Course course : courses) {
+                writeCourse(course);
+            }
+            out.writeInt(batches.size());
+            for (StudentBatch batch : batches) {
+                writeNullableLong(batch.getId());
+                writeString(batch.getBatchName());
+                out.writeInt(batch.getYear());
+                out.writeInt(batch.getStrength());
+                writeIndices(batch.getCourses(), courseIndex);
+                writeLongs(batch.getLectureRoomIDs());
+                writeLongs(batch.getPracticalRoomIDs());
+            }
+
+            // Interning the slots again in index order restores their ids and catalogue indices
+            TimeSlotCatalogue catalogue = problem.getTimeSlotCatalogue();
+            out.writeInt(catalogue.size());
+            for (TimeSlot slot : catalogue.getTimeSlots()) {
+                writeString(slot.getDay());
+                out.writeInt(slot.getStartTime().toSecondOfDay());
+                out.writeInt(slot.getEndTime().toSecondOfDay());
+                writeString(slot.getSlotType());
+            }
+            writeSlots(problem.getTimeSlotList());
+            writeSlots(problem.getMinorTimeSlotList());
+
+            // Lessons of the same batch and type share their value range list, so do the restored lessons
+            List<List<TimeSlot>> ranges = new ArrayList<>();
+            for (Lesson lesson : allLessons(problem)) {
+                if (lesson.getTimeSlotRange() != null && !rangeIndex.containsKey(lesson.getTimeSlotRange())) {
+                    rangeIndex.put(lesson.getTimeSlotRange(), ranges.size());
+                    ranges.add(lesson.getTimeSlotRange());
+                }
+            }
+            out.writeInt(ranges.size());
+            for (List<TimeSlot> range : ranges) {
+                writeSlots(range);
+            }
+
+            writeLessons(problem.getLessonList(), problem.getRoomList());
+            writeLessons(problem.getMinorLessonList(), problem.getRoomList());
+        }
+
+        private void addCourse(Course course, List<Course> courses) {
+            if (course != null && !courseIndex.containsKey(course)) {
+                courseIndex.put(course, courses.size());
+                courses.add(course);
+            }
+        }
+
+        private void writeCourse(Course course) throws IOException {
+            writeNullableLong(course.getId());
+            writeString(course.getCourseCode());
+            writeString(course.getName());
+            writeString(course.getCourseType());
+            out.writeInt(course.getBatchIds().size());
+            for (Integer batchId : course.getBatchIds()) {
+                out.writeInt(batchId);
+            }
+            out.writeInt(course.getLectureHours());
+            out.writeInt(course.getTheoryHours());
+            out.writeInt(course.getPracticalHours());
+            out.writeInt(course.getCredits());
+            writeIndices(course.getEligibleFaculty(), facultyIndex);
+            // Minors carry lecture room ids and are built with the constructor that leaves hoursPerWeek at 0
+            out.writeBoolean(course.getLectureRoomIDs() != null);
+            if (course.getLectureRoomIDs() != null) {
+                writeLongs(course.getLectureRoomIDs());
+            }
+            out.writeBoolean(course.isMinor());
+        }
+
+        private void writeLessons(List<Lesson> lessons, List<Room> problemRoomList) throws IOException {
+            out.writeInt(lessons.size());
+            for (Lesson lesson : lessons) {
+                writeNullableLong(lesson.getId());
+                out.writeInt(indexOf(lesson.getCourse(), courseIndex));
+                out.writeInt(indexOf(lesson.getStudentBatch(), batchIndex));
+                writeString(lesson.getLessonType());
+                out.writeInt(indexOf(lesson.getFaculty(), facultyIndex));
+                out.writeInt(indexOf(lesson.getRoom(), roomIndex));
+                out.writeInt(lesson.getTimeSlot() != null ? lesson.getTimeSlot().getIndex() : -1);
+                out.writeInt(indexOf(lesson.getTimeSlotRange(), rangeIndex));
+                if (lesson.getRoomList() == null) {
+                    out.writeByte(ROOM_LIST_NULL);
+                } else if (lesson.getRoomList() == problemRoomList) {
+                    out.writeByte(ROOM_LIST_PROBLEM);
+                } else {
+                    out.writeByte(ROOM_LIST_OWN);
+                    writeIndices(lesson.getRoomList(), roomIndex);
+                }
+                out.writeBoolean(lesson.isPinned());
+            }
+        }
+
+        private void writeSlots(List<TimeSlot> slots) throws IOException {
+            out.writeInt(slots.size());
+            for (TimeSlot slot : slots) {
+                out.writeInt(slot.getIndex());
+            }
+        }
+
+        private void writeIndices(List<?> items, Map<Object, Integer> index) throws IOException {
+            if (items == null) {
+                out.writeInt(-1);
+                return;
+            }
+            out.writeInt(items.size());
+            for (Object item : items) {
+                out.writeInt(indexOf(item, index));
+            }
+        }
+
+        private int indexOf(Object item, Map<Object, Integer> index) {
+            if (item == null) {
+                return -1;
+            }
+            Integer position = index.get(item);
+            if (position == null) {
+                throw new IllegalStateException("Problem references an object outside its fact lists: " + item);
+            }
+            return position;
+        }
+
+        private void writeLongs(List<Long> values) throws IOException {
+            out.writeInt(values.size());
+            for (Long value : values) {
+                out.writeLong(value);
+            }
+        }
+
+        private void writeNullableLong(Long value) throws IOException {
+            out.writeBoolean(value != null);
+            out.writeLong(value != null ? value : 0L);
+        }
+
+        private void writeString(String value) throws IOException {
+            if (value == null) {
+                out.writeInt(-1);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static final class Reader {
+        private final ByteBuffer buffer;
+        private final List<Faculty> faculty = new ArrayList<>();
+        private final List<Room> rooms = new ArrayList<>();
+        private final List<Course> courses = new ArrayList<>();
+        private final List<StudentBatch> batches = new ArrayList<>();
+        private final List<List<TimeSlot>> ranges = new ArrayList<>();
+        private final TimeSlotCatalogue catalogue = new TimeSlotCatalogue();
+
+        private Reader(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        private TimeTable readProblem() {
+            long id = buffer.getLong();
+
+            int facultyCount = buffer.getInt();
+            for (int i = 0; i < facultyCount; i++) {
+                Long facultyId = readNullableLong();
+                String name = readString();
+                String email = readString();
+                String password = readString();
+                List<String> subjects = new ArrayList<>();
+                int subjectCount = buffer.getInt();
+                for (int s = 0; s < subjectCount; s++) {
+                    subjects.add(readString());
+                }
+                faculty.add(new Faculty(facultyId, name, email, password, List.copyOf(subjects), buffer.getInt()));
+            }
+
+            int roomCount = buffer.getInt();
+            for (int i = 0; i < roomCount; i++) {
+                Long roomId = readNullableLong();
+                String roomNumber = readString();
+                int capacity = buffer.getInt();
+                String type = readString();
+                Room room = new Room(roomId, roomNumber, capacity, type != null ? RoomType.valueOf(type) : null);
+                room.setAvailable(buffer.get() != 0);
+                rooms.add(room);
+            }
+
+            int courseCount = buffer.getInt();
+            for (int i = 0; i < courseCount; i++) {
+                courses.add(readCourse());
+            }
+
+            int batchCount = buffer.getInt();
+            for (int i = 0; i < batchCount; i++) {
+                Long batchId = readNullableLong();
+                String batchName = readString();
+                int year = buffer.getInt();
+                int strength = buffer.getInt();
+                batches.add(new StudentBatch(batchId, batchName, year, strength,
+                        readReferences(courses), readLongs(), readLongs()));
+            }
+
+            int slotCount = buffer.getInt();
+            for (int i = 0; i < slotCount; i++) {
+                String day = readString();
+                LocalTime startTime = LocalTime.ofSecondOfDay(buffer.getInt());
+                LocalTime endTime = LocalTime.ofSecondOfDay(buffer.getInt());
+                catalogue.intern(day, startTime, endTime, readString());
+            }
+            catalogue.buildRelationTable();
+            List<TimeSlot> timeSlotList = readSlots();
+            List<TimeSlot> minorTimeSlotList = readSlots();
+
+            int rangeCount = buffer.getInt();
+            for (int i = 0; i < rangeCount; i++) {
+                ranges.add(readSlots());
+            }
+
+            List<Lesson> lessonList = readLessons(rooms);
+            List<Lesson> minorLessonList = readLessons(rooms);
+
+            TimeTable problem = new TimeTable(id, lessonList, minorLessonList, faculty, rooms, timeSlotList, minorTimeSlotList);
+            problem.setTimeSlotCatalogue(catalogue);
+            return problem;
+        }
+
+        private Course readCourse() {
+            Long courseId = readNullableLong();
+            String courseCode = readString();
+            String name = readString();
+            String courseType = readString();
+            List<Integer> batchIds = new ArrayList<>();
+            int batchIdCount = buffer.getInt();
+            for (int b = 0; b < batchIdCount; b++) {
+                batchIds.add(buffer.getInt());
+            }
+            int lectureHours = buffer.getInt();
+            int theoryHours = buffer.getInt();
+            int practicalHours = buffer.getInt();
+            int credits = buffer.getInt();
+            List<Faculty> eligibleFaculty = readReferences(faculty);
+            Course course = buffer.get() != 0
+                    ? new Course(courseId, courseCode, name, courseType, batchIds, lectureHours, theoryHours,
+                            practicalHours, credits, eligibleFaculty, readLongs())
+                    : new Course(courseId, courseCode, name, courseType, batchIds, lectureHours, theoryHours,
+                            practicalHours, credits, eligibleFaculty);
+            course.setMinor(buffer.get() != 0);
+            return course;
+        }
+
+        private List<Lesson> readLessons(List<Room> problemRoomList) {
+            int lessonCount = buffer.getInt();
+            List<Lesson> lessons = new ArrayList<>(lessonCount);
+            for (int i = 0; i < lessonCount; i++) {
+                Long lessonId = readNullableLong();
+                Course course = reference(courses, buffer.getInt());
+                StudentBatch batch = reference(batches, buffer.getInt());
+                String lessonType = readString();
+                Faculty lessonFaculty = reference(faculty, buffer.getInt());
+                Room room = reference(rooms, buffer.getInt());
+                int slotIndex = buffer.getInt();
+                List<TimeSlot> range = reference(ranges, buffer.getInt());
+                int roomListKind = buffer.get();
+                List<Room> roomList = roomListKind == ROOM_LIST_PROBLEM ? problemRoomList
+                        : roomListKind == ROOM_LIST_OWN ? readReferences(rooms) : null;
+
+                Lesson lesson = new Lesson(lessonId, course, batch, roomList);
+                lesson.setLessonType(lessonType);
+                lesson.setFaculty(lessonFaculty);
+                lesson.setRoom(room);
+                lesson.setTimeSlot(slotIndex >= 0 ? catalogue.get(slotIndex) : null);
+                lesson.setTimeSlotRange(range);
+                lesson.setPinned(buffer.get() != 0);
+                lessons.add(lesson);
+            }
+            return lessons;
+        }
+
+        private List<TimeSlot> readSlots() {
+            int count = buffer.getInt();
+            List<TimeSlot> slots = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                slots.add(catalogue.get(buffer.getInt()));
+            }
+            return slots;
+        }
+
+        private <T> List<T> readReferences(List<T> table) {
+            int count = buffer.getInt();
+            if (count < 0) {
+                return null;
+            }
+            List<T> items = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                items.add(reference(table, buffer.getInt()));
+            }
+            return items;
+        }
+
+        private static <T> T reference(List<T> table, int index) {
+            return index >= 0 ? table.get(index) : null;
+        }
+
+        private List<Long> readLongs() {
+            int count = buffer.getInt();
+            List<Long> values = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                values.add(buffer.getLong());
+            }
+            return values;
+        }
+
+        private Long readNullableLong() {
+            boolean present = buffer.get() != 0;
+            long value = buffer.getLong();
+            return present ? value : null;
+        }
+
+        private String readString() {
+            int length = buffer.getInt();
+            if (length < 0) {
+                return null;
+            }
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static List<Lesson> allLessons(TimeTable problem) {
+        List<Lesson> lessons = new ArrayList<>(problem.getLessonList());
+        lessons.addAll(problem.getMinorLessonList());
+        return lessons;
+    }
+}
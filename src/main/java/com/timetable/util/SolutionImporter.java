@@ -0,0 +1,145 @@
+package com.timetable.util;
+
+import com.opencsv.CSVParser;
+import com.timetable.domain.Lesson;
+import com.timetable.domain.TimeSlot;
+import com.timetable.domain.TimeTable;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Seeds the time slots of a freshly built problem from a timetable exported by TimeTableApp
+ * (final_timetable.csv: Day, Time, Room, Batch, Course, Type, Faculty), so the solver continues from the
+ * previous solution. Lessons without a usable row stay unassigned for the construction heuristic.
+ */
+public class SolutionImporter {
+    private static final Logger logger = Logger.getLogger(SolutionImporter.class.getName());
+    private static final String MINOR_BATCH = "ALL"; // Batch column of minor lessons in the export
+
+    private SolutionImporter() {}
+
+    // Returns the number of lessons that received a time slot from the file
+    public static int seedTimeSlots(TimeTable problem, Path csvFile) throws IOException {
+        // Lessons are matched by batch, course and type; faculty and room only break ties,
+        // so a row still applies after a course changed teacher or a batch changed room
+        Map<String, List<Lesson>> unseededLessons = new HashMap<>();
+        for (Lesson lesson : problem.getLessonList()) {
+            if (lesson.getStudentBatch() != null && lesson.getCourse() != null) {
+                unseededLessons.computeIfAbsent(key(lesson.getStudentBatch().getBatchName(), lesson.getCourse().getName(),
+                        lesson.getLessonType()), k -> new ArrayList<>()).add(lesson);
+            }
+        }
+        for (Lesson lesson : problem.getMinorLessonList()) {
+            if (lesson.getCourse() != null) {
+                unseededLessons.computeIfAbsent(key(MINOR_BATCH, lesson.getCourse().getName(), lesson.getLessonType()),
+                        k -> new ArrayList<>()).add(lesson);
+            }
+        }
+
+        CSVParser csvParser = new CSVParser();
+        int seeded = 0;
+        int unmatched = 0;
+        int lineNumber = 0;
+        boolean header = true;
+        try (BufferedReader reader = Files.newBufferedReader(csvFile)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.trim().startsWith("#") || line.trim().isEmpty()) {
+                    continue;
+                }
+                if (header) {
+                    header = false;
+                    continue;
+                }
+                String[] row = csvParser.parseLine(line);
+                if (row.length < 7) {
+                    logger.warning(String.format("%s:%d: insufficient columns (%d of 7)", csvFile, lineNumber, row.length));
+                    unmatched++;
+                    continue;
+                }
+                // The export does not quote, so a course name containing commas spreads over several columns
+                String day = row[0].trim();
+                String time = row[1].trim();
+                String room = row[2].trim();
+                String batch = row[3].trim();
+                String course = String.join(",", Arrays.copyOfRange(row, 4, row.length - 2)).trim();
+                String type = row[row.length - 2].trim();
+                String faculty = row[row.length - 1].trim();
+
+                Lesson lesson = takeLesson(unseededLessons.get(key(batch, course, type)), faculty, room);
+                TimeSlot timeSlot = lesson != null ? findSlot(lesson, day, time) : null;
+                if (timeSlot == null) {
+                    logger.fine(String.format("%s:%d: no lesson or slot for %s %s %s %s", csvFile, lineNumber, batch, course, type, time));
+                    if (lesson != null) {
+                        unseededLessons.get(key(batch, course, type)).add(lesson);
+                    }
+                    unmatched++;
+                    continue;
+                }
+                lesson.setTimeSlot(timeSlot);
+                seeded++;
+            }
+        }
+
+        int lessonCount = problem.getLessonList().size() + problem.getMinorLessonList().size();
+        logger.info(String.format("Seeded %d of %d lessons from %s; %d rows did not match",
+                seeded, lessonCount, csvFile, unmatched));
+        return seeded;
+    }
+
+    // Removes and returns the candidate with the same faculty and room, else the first one
+    private static Lesson takeLesson(List<Lesson> candidates, String faculty, String room) {
+        if (candidates == null || candidates.isEmpty()) {
+            return null;
+        }
+        for (Iterator<Lesson> iterator = candidates.iterator(); iterator.hasNext(); ) {
+            Lesson candidate = iterator.next();
+            if (candidate.getFaculty() != null && faculty.equals(candidate.getFaculty().getName())
+                    && candidate.getRoom() != null && room.equals(candidate.getRoom().getRoomNumber())) {
+                iterator.remove();
+                return candidate;
+            }
+        }
+        return candidates.remove(0);
+    }
+
+    // The slot of the lesson's value range with this day and HH:mm-HH:mm time, or null if the range has none
+    private static TimeSlot findSlot(Lesson lesson, String day, String time) {
+        int separator = time.indexOf('-');
+        if (separator < 0 || lesson.getTimeSlotRange() == null) {
+            return null;
+        }
+        LocalTime startTime;
+        LocalTime endTime;
+        try {
+            startTime = LocalTime.parse(time.substring(0, separator).trim());
+            endTime = LocalTime.parse(time.substring(separator + 1).trim());
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+        for (TimeSlot slot : lesson.getTimeSlotRange()) {
+            if (slot.getDay().equalsIgnoreCase(day) && slot.getStartTime().equals(startTime)
+                    && slot.getEndTime().equals(endTime)) {
+                return slot;
+            }
+        }
+        return null;
+    }
+
+    private static String key(String batch, String course, String type) {
+        return batch + '|' + course + '|' + type;
+    }
+}
@@ -0,0 +1,111 @@
+package com.timetable.score;
+
+import com.timetable.TimeTableApp;
+import com.timetable.domain.Lesson;
+import com.timetable.domain.TimeSlot;
+import com.timetable.domain.TimeTable;
+import com.timetable.solver.SolverOptions;
+import com.timetable.solver.TimeTableSolverConfig;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.optaplanner.core.api.score.buildin.hardsoft.HardSoftScore;
+import org.optaplanner.core.api.solver.SolutionManager;
+import org.optaplanner.core.api.solver.SolverFactory;
+import org.optaplanner.core.config.solver.SolverConfig;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that TimeTableIncrementalScoreCalculator scores the shipped CSVs exactly like the constraint streams,
+ * both from scratch and while lessons are moved and moved back through the incremental callbacks.
+ */
+class TimeTableIncrementalScoreCalculatorTest {
+    private static final int RANDOM_TIMETABLES = 5;
+    private static final int RANDOM_MOVES = 2000;
+    private static final int WALK_CHECK_INTERVAL = 10;
+
+    private static TimeTable problem;
+    private static SolutionManager<TimeTable, HardSoftScore> streams;
+    private static SolutionManager<TimeTable, HardSoftScore> incremental;
+
+    @BeforeAll
+    static void loadProblem() throws Exception {
+        problem = TimeTableApp.loadProblem();
+        streams = solutionManager(SolverOptions.SCORE_CALCULATOR_STREAMS);
+        incremental = solutionManager(SolverOptions.SCORE_CALCULATOR_INCREMENTAL);
+    }
+
+    @Test
+    void randomTimetablesScoreLikeTheStreams() {
+        for (int seed = 0; seed < RANDOM_TIMETABLES; seed++) {
+            assignRandomTimeSlots(new Random(seed));
+            assertEquals(streams.update(problem), incremental.update(problem), "Random timetable of seed " + seed);
+        }
+    }
+
+    // Moves random lessons through the incremental callbacks, sometimes undoing the move as a rejected
+    // local search move would, and compares the running score with a from-scratch stream calculation
+    @Test
+    void movesAndUndosScoreLikeTheStreams() {
+        Random random = new Random(RANDOM_TIMETABLES);
+        assignRandomTimeSlots(random);
+        List<Lesson> lessons = allLessons();
+        // Half the lessons remember their starting slot, as in repair mode, so moving them away is penalized
+        for (int i = 0; i < lessons.size(); i += 2) {
+            lessons.get(i).setOriginalTimeSlot(lessons.get(i).getTimeSlot());
+        }
+        try {
+            TimeTableIncrementalScoreCalculator calculator = new TimeTableIncrementalScoreCalculator();
+            calculator.resetWorkingSolution(problem);
+            for (int move = 1; move <= RANDOM_MOVES; move++) {
+                Lesson lesson = lessons.get(random.nextInt(lessons.size()));
+                List<TimeSlot> range = lesson.getTimeSlotRange();
+                TimeSlot undoSlot = lesson.getTimeSlot();
+                changeTimeSlot(calculator, lesson, range.get(random.nextInt(range.size())));
+                if (random.nextBoolean()) {
+                    calculator.calculateScore();
+                    changeTimeSlot(calculator, lesson, undoSlot);
+                }
+
+                if (move % WALK_CHECK_INTERVAL == 0) {
+                    assertEquals(streams.update(problem), calculator.calculateScore(),
+                            "Move " + move + " on lesson " + lesson.getId());
+                }
+            }
+        } finally {
+            for (Lesson lesson : lessons) {
+                lesson.setOriginalTimeSlot(null);
+            }
+        }
+    }
+
+    private static void changeTimeSlot(TimeTableIncrementalScoreCalculator calculator, Lesson lesson, TimeSlot timeSlot) {
+        calculator.beforeVariableChanged(lesson, "timeSlot");
+        lesson.setTimeSlot(timeSlot);
+        calculator.afterVariableChanged(lesson, "timeSlot");
+    }
+
+    private static SolutionManager<TimeTable, HardSoftScore> solutionManager(String scoreCalculator) {
+        SolverConfig solverConfig = TimeTableSolverConfig.create(SolverOptions.MOVE_THREADS_NONE, Duration.ofSeconds(1),
+                scoreCalculator);
+        return SolutionManager.create(SolverFactory.create(solverConfig));
+    }
+
+    private static List<Lesson> allLessons() {
+        List<Lesson> lessons = new ArrayList<>(problem.getLessonList());
+        lessons.addAll(problem.getMinorLessonList());
+        return lessons;
+    }
+
+    private static void assignRandomTimeSlots(Random random) {
+        for (Lesson lesson : allLessons()) {
+            List<TimeSlot> range = lesson.getTimeSlotRange();
+            lesson.setTimeSlot(range.get(random.nextInt(range.size())));
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.timetable.solver;
+
+import com.timetable.TimeTableApp;
+import com.timetable.domain.TimeTable;
+import org.junit.jupiter.api.Test;
+import org.optaplanner.core.api.solver.Solver;
+import org.optaplanner.core.api.solver.SolverFactory;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs a short solve of the shipped CSVs with the report attached and checks that it records the construction
+ * heuristic phase without breaking the solve.
+ */
+class ConstructionReportTest {
+    private static final Duration SPENT_LIMIT = Duration.ofSeconds(2);
+
+    @Test
+    void recordsTheConstructionOfASolve() {
+        Solver<TimeTable> solver = SolverFactory.<TimeTable>create(TimeTableSolverConfig.create(
+                SolverOptions.MOVE_THREADS_NONE, SPENT_LIMIT, SolverOptions.SCORE_CALCULATOR_STREAMS)).buildSolver();
+        ConstructionReport report = ConstructionReport.attach(solver, "Test");
+
+        TimeTable solution = solver.solve(TimeTableApp.loadProblem());
+
+        assertNotNull(solution.getScore());
+        assertTrue(report.getTimeMillisSpent() >= 0, "Construction time was not recorded");
+        assertNotNull(report.getScore());
+    }
+}
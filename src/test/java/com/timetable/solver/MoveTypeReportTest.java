@@ -0,0 +1,30 @@
+package com.timetable.solver;
+
+import com.timetable.TimeTableApp;
+import com.timetable.domain.TimeTable;
+import org.junit.jupiter.api.Test;
+import org.optaplanner.core.api.solver.Solver;
+import org.optaplanner.core.api.solver.SolverFactory;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Runs a short solve of the shipped CSVs with the report attached and checks that reporting the end of the
+ * local search phase does not break the solve.
+ */
+class MoveTypeReportTest {
+    private static final Duration SPENT_LIMIT = Duration.ofSeconds(3);
+
+    @Test
+    void reportsTheLocalSearchOfASolve() {
+        Solver<TimeTable> solver = SolverFactory.<TimeTable>create(TimeTableSolverConfig.create(
+                SolverOptions.MOVE_THREADS_NONE, SPENT_LIMIT, SolverOptions.SCORE_CALCULATOR_INCREMENTAL)).buildSolver();
+        MoveTypeReport.attach(solver, "Test");
+
+        TimeTable solution = solver.solve(TimeTableApp.loadProblem());
+
+        assertNotNull(solution.getScore());
+    }
+}
@@ -0,0 +1,30 @@
+package com.timetable.solver;
+
+import com.timetable.TimeTableApp;
+import com.timetable.domain.TimeTable;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Checks that a session stopped right after it started ends promptly instead of running its whole budget and
+ * then waiting for changes in daemon mode.
+ */
+class SolverSessionTest {
+    private static final Duration SPENT_LIMIT = Duration.ofMinutes(1);
+
+    @Test
+    @Timeout(value = 30, unit = TimeUnit.SECONDS)
+    void stopsRightAfterStarting() throws Exception {
+        TimeTable problem = TimeTableApp.loadProblem();
+        try (SolverSession session = new SolverSession(TimeTableSolverConfig.create(
+                SolverOptions.MOVE_THREADS_NONE, SPENT_LIMIT, SolverOptions.SCORE_CALCULATOR_STREAMS))) {
+            session.start(problem);
+            assertNotNull(session.stop());
+        }
+    }
+}
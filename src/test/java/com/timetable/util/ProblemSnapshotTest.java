@@ -0,0 +1,134 @@
+package com.timetable.util;
+
+import com.timetable.TimeTableApp;
+import com.timetable.domain.Lesson;
+import com.timetable.domain.TimeSlot;
+import com.timetable.domain.TimeTable;
+import com.timetable.solver.SolverOptions;
+import com.timetable.solver.TimeTableSolverConfig;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.optaplanner.core.api.score.buildin.hardsoft.HardSoftScore;
+import org.optaplanner.core.api.solver.SolutionManager;
+import org.optaplanner.core.api.solver.SolverFactory;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Writes the problem built from the shipped CSVs to a snapshot and checks that reading it back restores the same
+ * facts, the same lesson references into them, the assigned and pinned slots and the same score.
+ */
+class ProblemSnapshotTest {
+    private static final byte[][] SOURCE_HASHES = {{1}, {2}, {3}, {4}, {5}};
+    private static final long SEED = 0L;
+
+    private static TimeTable problem;
+
+    @TempDir
+    Path directory;
+
+    @BeforeAll
+    static void loadProblem() {
+        problem = TimeTableApp.loadProblem();
+        Random random = new Random(SEED);
+        List<Lesson> lessons = allLessons(problem);
+        for (int i = 0; i < lessons.size(); i++) {
+            Lesson lesson = lessons.get(i);
+            List<TimeSlot> range = lesson.getTimeSlotRange();
+            lesson.setTimeSlot(range.get(random.nextInt(range.size())));
+            lesson.setPinned(i % 3 == 0);
+        }
+    }
+
+    @Test
+    void restoresFactsAndLessons() throws Exception {
+        TimeTable restored = writeAndRead();
+
+        assertEquals(problem.getFacultyList().size(), restored.getFacultyList().size());
+        assertEquals(problem.getRoomList().size(), restored.getRoomList().size());
+        assertEquals(problem.getTimeSlotList().size(), restored.getTimeSlotList().size());
+        assertEquals(problem.getMinorTimeSlotList().size(), restored.getMinorTimeSlotList().size());
+        assertEquals(problem.getTimeSlotCatalogue().size(), restored.getTimeSlotCatalogue().size());
+        assertEquals(problem.getLessonList().size(), restored.getLessonList().size());
+        assertEquals(problem.getMinorLessonList().size(), restored.getMinorLessonList().size());
+
+        List<Lesson> lessons = allLessons(problem);
+        List<Lesson> restoredLessons = allLessons(restored);
+        for (int i = 0; i < lessons.size(); i++) {
+            Lesson lesson = lessons.get(i);
+            Lesson restoredLesson = restoredLessons.get(i);
+            String name = "Lesson " + lesson.getId();
+            assertEquals(lesson.getId(), restoredLesson.getId(), name);
+            assertEquals(lesson.getLessonType(), restoredLesson.getLessonType(), name);
+            assertEquals(lesson.getCourse().getCourseCode(), restoredLesson.getCourse().getCourseCode(), name);
+            assertEquals(lesson.getStudentBatch() != null ? lesson.getStudentBatch().getBatchName() : null,
+                    restoredLesson.getStudentBatch() != null ? restoredLesson.getStudentBatch().getBatchName() : null, name);
+
+            // References point into the restored fact lists, not at copies of their own
+            if (lesson.getFaculty() == null) {
+                assertNull(restoredLesson.getFaculty(), name);
+            } else {
+                assertEquals(lesson.getFaculty().getId(), restoredLesson.getFaculty().getId(), name);
+                assertTrue(containsSame(restored.getFacultyList(), restoredLesson.getFaculty()), name);
+            }
+            if (lesson.getRoom() == null) {
+                assertNull(restoredLesson.getRoom(), name);
+            } else {
+                assertEquals(lesson.getRoom().getId(), restoredLesson.getRoom().getId(), name);
+                assertTrue(containsSame(restored.getRoomList(), restoredLesson.getRoom()), name);
+            }
+
+            TimeSlot restoredSlot = restoredLesson.getTimeSlot();
+            assertNotNull(restoredSlot, name);
+            assertEquals(lesson.getTimeSlot().getId(), restoredSlot.getId(), name);
+            assertSame(restored.getTimeSlotCatalogue().get(lesson.getTimeSlot().getIndex()), restoredSlot, name);
+            assertTrue(containsSame(restoredLesson.getTimeSlotRange(), restoredSlot), name);
+            assertEquals(lesson.isPinned(), restoredLesson.isPinned(), name);
+        }
+    }
+
+    @Test
+    void restoresTheScore() throws Exception {
+        TimeTable restored = writeAndRead();
+        SolutionManager<TimeTable, HardSoftScore> solutionManager = SolutionManager.create(SolverFactory.create(
+                TimeTableSolverConfig.create(SolverOptions.MOVE_THREADS_NONE, Duration.ofSeconds(1),
+                        SolverOptions.SCORE_CALCULATOR_STREAMS)));
+        assertEquals(solutionManager.update(problem), solutionManager.update(restored));
+    }
+
+    @Test
+    void ignoresSnapshotOfOtherSources() throws Exception {
+        Path snapshotFile = directory.resolve("problem.snapshot");
+        ProblemSnapshot.write(problem, SOURCE_HASHES, snapshotFile);
+        assertNull(ProblemSnapshot.read(snapshotFile, new byte[][] {{1}, {2}, {3}, {4}, {6}}));
+    }
+
+    private TimeTable writeAndRead() throws Exception {
+        Path snapshotFile = directory.resolve("problem.snapshot");
+        ProblemSnapshot.write(problem, SOURCE_HASHES, snapshotFile);
+        TimeTable restored = ProblemSnapshot.read(snapshotFile, SOURCE_HASHES);
+        assertNotNull(restored);
+        return restored;
+    }
+
+    private static boolean containsSame(List<?> list, Object item) {
+        return list.stream().anyMatch(candidate -> candidate == item);
+    }
+
+    private static List<Lesson> allLessons(TimeTable problem) {
+        List<Lesson> lessons = new ArrayList<>(problem.getLessonList());
+        lessons.addAll(problem.getMinorLessonList());
+        return lessons;
+    }
+}